@@ -1,20 +1,20 @@
 package org.eclipse.babel.editor.internal;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.eclipse.babel.core.message.IMessage;
 import org.eclipse.babel.core.message.IMessagesBundle;
-import org.eclipse.babel.core.message.IMessagesBundleGroup;
 import org.eclipse.babel.core.message.internal.IMessagesBundleGroupListener;
+import org.eclipse.babel.core.message.internal.Message;
 import org.eclipse.babel.core.message.internal.MessagesBundle;
 import org.eclipse.babel.core.message.internal.MessagesBundleGroupAdapter;
 import org.eclipse.babel.core.message.manager.RBManager;
 import org.eclipse.babel.core.util.BabelUtils;
-import org.eclipse.babel.editor.IMessagesEditor;
 import org.eclipse.babel.editor.util.SharedMsgEditorsManager;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IFileEditorInput;
 import org.eclipse.ui.editors.text.TextEditor;
@@ -22,26 +22,41 @@ import org.eclipse.ui.part.FileEditorInput;
 import org.eclipse.ui.texteditor.ITextEditor;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.IPropertiesFileLockListener;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.PFLock;
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.PropertiesFileDelta;
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.PropertiesFileDeltaLog;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.RBLockManager;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
 import org.eclipselabs.tapiji.translator.rap.model.user.User;
+import org.eclipselabs.tapiji.translator.rap.model.user.util.PropertiesFileName;
 
 public class MessagesEditor extends AbstractMessagesEditor {
 
+	/** copy of the stored resource bundle, which is updated by this editor only (UI thread), null if temporary */
 	private ResourceBundle resourceBundle;
 	private Display display;
 	private Map<PropertiesFile, IPropertiesFileLockListener> pfLockListeners =
 			new HashMap<PropertiesFile, IPropertiesFileLockListener>();
+	/** properties file id (as key) -> version of the file shown by this editor (as value), UI thread only */
+	private Map<Long, Long> appliedVersions = new HashMap<Long, Long>();
 
 	private IPropertiesFileLockListener pfLockListener = new IPropertiesFileLockListener() {
 		// return locale from properties file ID
 		private Locale idToLocale(long pfID) {
-			PropertiesFile propertiesFile = DBUtils.getPropertiesFile(pfID);
-			return propertiesFile.getLocale() != null ?
-					new Locale(propertiesFile.getLocale()) : null;
+			// listener is registered for the files of this editor's resource bundle only
+			PropertiesFile propertiesFile = null;
+			for (PropertiesFile pf : pfLockListeners.keySet()) {
+				if (pf.getId() == pfID) {
+					propertiesFile = pf;
+					break;
+				}
+			}
+			if (propertiesFile == null)
+				propertiesFile = DBUtils.getPropertiesFile(pfID);
+			PropertiesFileName filename = propertiesFile.getParsedFilename();
+			return filename != null ? filename.toLocale() : null;
 		}
 
 		@Override
@@ -70,7 +85,11 @@ public class MessagesEditor extends AbstractMessagesEditor {
 				@Override
 				public void run() {
 					User currentUser = UserUtils.getUser();
-					if (currentUser != null && ! currentUser.equals(lock.getOwner())) {
+					if (currentUser != null && currentUser.equals(lock.getOwner())) {
+						// this session has saved the file itself, it already shows the latest version
+						appliedVersions.put(lock.getPropertiesFileID(),
+								PropertiesFileDeltaLog.INSTANCE.getVersion(lock.getPropertiesFileID()));
+					} else if (currentUser != null) {
 						Locale locale = idToLocale(lock.getPropertiesFileID());
 
 						// enable i18n-entry + text-editor
@@ -83,27 +102,72 @@ public class MessagesEditor extends AbstractMessagesEditor {
 							i18nPage.getTreeViewer().getTree().getMenu().setEnabled(true);
 						}
 
-						// refresh the text-editor of the locale
-						for (int i=0; i < localesIndex.size(); i++) {
-							Locale l = localesIndex.get(i);
-							if (BabelUtils.equals(l, locale)) {
-								textEditorsIndex.get(i).doRevertToSaved();
-								break;
-							}
-						}
-
-						// get messages bundle from locale
-						IMessagesBundle msgBundle = messagesBundleGroup.getMessagesBundle(locale);
-						// update message bundle with underlying resource
-						msgBundle.getResource().deserialize(msgBundle);
-						// refresh selected key's entry
-						RBManager.getInstance(messagesBundleGroup.getProjectName()).fireResourceChanged(msgBundle);
+						refreshMessagesBundle(lock.getPropertiesFileID(), locale);
 					}
 				}
 			});
 		}
 	};
 
+	/**
+	 * Brings the messages bundle of a locale up to date after another user has released the lock
+	 * of its properties file. If the other user has saved the file once, only the changed keys of
+	 * the published delta are applied, otherwise (a delta has been missed) the messages bundle is
+	 * read again from the file. Nothing is refreshed if the file hasn't been saved at all.
+	 * @param pfID id of the properties file
+	 * @param locale locale of the properties file
+	 */
+	private void refreshMessagesBundle(long pfID, Locale locale) {
+		PropertiesFileDelta delta = PropertiesFileDeltaLog.INSTANCE.getLatest(pfID);
+		long version = delta != null ? delta.getVersion() : 0;
+		Long appliedVersion = appliedVersions.get(pfID);
+		if (appliedVersion != null && appliedVersion.longValue() == version)
+			return;
+		appliedVersions.put(pfID, version);
+
+		// refresh the text-editor of the locale
+		for (int i=0; i < localesIndex.size(); i++) {
+			Locale l = localesIndex.get(i);
+			if (BabelUtils.equals(l, locale)) {
+				textEditorsIndex.get(i).doRevertToSaved();
+				break;
+			}
+		}
+
+		// get messages bundle from locale
+		IMessagesBundle msgBundle = messagesBundleGroup.getMessagesBundle(locale);
+		if (msgBundle == null)
+			return;
+
+		if (appliedVersion != null && delta != null && delta.getVersion() == appliedVersion.longValue() + 1) {
+			if (delta.isEmpty())
+				return;
+			// apply changed keys only
+			for (String key : delta.getRemovedKeys())
+				msgBundle.removeMessage(key);
+			for (Map.Entry<String, String> entry : delta.getAddedKeys().entrySet())
+				setMessageText(msgBundle, entry.getKey(), entry.getValue());
+			for (Map.Entry<String, String> entry : delta.getChangedKeys().entrySet())
+				setMessageText(msgBundle, entry.getKey(), entry.getValue());
+		} else {
+			// update message bundle with underlying resource
+			msgBundle.getResource().deserialize(msgBundle);
+		}
+		// refresh selected key's entry
+		RBManager.getInstance(messagesBundleGroup.getProjectName()).fireResourceChanged(msgBundle);
+	}
+
+	private void setMessageText(IMessagesBundle msgBundle, String key, String text) {
+		IMessage message = msgBundle.getMessage(key);
+		if (message == null) {
+			message = new Message(key, msgBundle.getLocale());
+			message.setText(text);
+			msgBundle.addMessage(message);
+		} else {
+			message.setText(text);
+		}
+	}
+
 	@Override
 	public void disposeRAP() {
 		if (resourceBundle != null && ! pfLockListeners.isEmpty()) {
@@ -114,11 +178,27 @@ public class MessagesEditor extends AbstractMessagesEditor {
 		}
 	}
 
+	/**
+	 * Returns a copy of the stored resource bundle of the file. The cached resource bundle is shared
+	 * by all sessions and must not be modified, the editor adds and removes files of its copy.
+	 */
 	private ResourceBundle getRBFromFile(IFile ifile) {
 
 		PropertiesFile propsFile = DBUtils.getPropertiesFile(file.getLocation().toOSString());
 		ResourceBundle rb = propsFile != null ? propsFile.getResourceBundle() : null;
-		return rb;
+		return rb != null ? EcoreUtil.copy(rb) : null;
+	}
+	
+	/**
+	 * Returns the properties file of this editor's resource bundle copy with the given id.
+	 * @return the properties file or null if it isn't part of the resource bundle
+	 */
+	private PropertiesFile getPropertiesFile(long pfID) {
+		for (PropertiesFile pf : resourceBundle.getPropertiesFiles()) {
+			if (pf.getId() == pfID)
+				return pf;
+		}
+		return null;
 	}
 
 	@Override
@@ -130,9 +210,13 @@ public class MessagesEditor extends AbstractMessagesEditor {
 			SharedMsgEditorsManager.INSTANCE.addMessagesEditor(resourceBundle.getId(), this);
 			for (PropertiesFile propertiesFile : resourceBundle.getPropertiesFiles()) {
 				RBLockManager.INSTANCE.addPFLockListener(propertiesFile.getId(), pfLockListener);
+				// the messages bundle has just been read from the file
+				appliedVersions.put(propertiesFile.getId(),
+						PropertiesFileDeltaLog.INSTANCE.getVersion(propertiesFile.getId()));
 				// disable editor if resource bundle is already opened by another user
-				if (RBLockManager.INSTANCE.isPFLocked(propertiesFile.getId()))
-					pfLockListener.lockAcquired(RBLockManager.INSTANCE.getPFLock(propertiesFile.getId()));
+				PFLock lock = RBLockManager.INSTANCE.getPFLock(propertiesFile.getId());
+				if (lock != null && lock.isLocked())
+					pfLockListener.lockAcquired(lock);
 
 				pfLockListeners.put(propertiesFile, pfLockListener);
 			}
@@ -157,26 +241,29 @@ public class MessagesEditor extends AbstractMessagesEditor {
                             PropertiesFile pf = ((TextEditor) messagesBundle
                                     .getResource().getSource())
                                     .getPropertiesFile();
-                            // update resource bundle
-                            resourceBundle.getPropertiesFiles().add(pf);
+                            // update the copy of the resource bundle, pf belongs to the text editor
+                            if (getPropertiesFile(pf.getId()) == null) {
+                                PropertiesFile pfCopy = EcoreUtil.copy(pf);
+                                resourceBundle.getPropertiesFiles().add(pfCopy);
+                                pfLockListeners.put(pfCopy, pfLockListener);
+                            }
                             // register properties file lock listener
                             RBLockManager.INSTANCE.addPFLockListener(
                                     pf.getId(), pfLockListener);
+                            appliedVersions.put(pf.getId(),
+                                    PropertiesFileDeltaLog.INSTANCE.getVersion(pf.getId()));
                         }
 					}
 				});
 
 				// inform other msg editors which have opened same resource bundle
-				// only owner thread of display, should initiate this, otherwise endless loop
-				if (Display.getCurrent().equals(display) && resourceBundle != null) {
-					List<IMessagesEditor> sharedEditors = SharedMsgEditorsManager.INSTANCE.
-							getSharedMessagesEditors(resourceBundle.getId());
-					for (IMessagesEditor sharedEditor : sharedEditors) {
-						if (sharedEditor != MessagesEditor.this)
-							// add locale to others msg bundle group -> fires messagesBundleAdded event
-							// add locale to create new msg bundle, can't use the same msg bundle with same text editor resource
-							sharedEditor.getBundleGroup().addMessagesBundle(newLocal);
-					}
+				// only owner thread of display, should initiate this, a received broadcast isn't
+				// broadcast again, otherwise endless loop
+				if (resourceBundle != null && Display.getCurrent() == display
+						&& ! SharedMsgEditorsManager.INSTANCE.isDelivering()) {
+					// adds locale to others msg bundle group -> fires messagesBundleAdded event
+					SharedMsgEditorsManager.INSTANCE.broadcastMessagesBundleAdded(
+							resourceBundle.getId(), MessagesEditor.this, newLocal);
 				}
 			}
 			@Override
@@ -196,9 +283,14 @@ public class MessagesEditor extends AbstractMessagesEditor {
                             RBLockManager.INSTANCE.removePFLockListener(
                                     textEditor.getPropertiesFile().getId(),
                                     pfLockListener);
-                            // update resource bundle
-                            resourceBundle.getPropertiesFiles().remove(
-                                    textEditor.getPropertiesFile());
+                            // update the copy of the resource bundle
+                            PropertiesFile pf = getPropertiesFile(
+                                    textEditor.getPropertiesFile().getId());
+                            if (pf != null) {
+                                resourceBundle.getPropertiesFiles().remove(pf);
+                                pfLockListeners.remove(pf);
+                            }
+                            appliedVersions.remove(textEditor.getPropertiesFile().getId());
                         }
 
 						// remove msg bundle from i18n page + remove text editor
@@ -223,18 +315,13 @@ public class MessagesEditor extends AbstractMessagesEditor {
 				});
 
 				// inform other msg editors which have opened same resource bundle
-				// only owner thread of display, should initiate this, otherwise endless loop
-				if (resourceBundle != null && Display.getCurrent().equals(display)) {
-					List<IMessagesEditor> sharedEditors = SharedMsgEditorsManager.INSTANCE.
-							getSharedMessagesEditors(resourceBundle.getId());
-					for (IMessagesEditor sharedEditor : sharedEditors) {
-						if (sharedEditor != MessagesEditor.this) {
-							// remove msg bundle from others msg bundle group -> fires messagesBundleRemoved event
-							IMessagesBundleGroup otherGroup = sharedEditor.getBundleGroup();
-							IMessagesBundle otherBundle = otherGroup.getMessagesBundle(locale);
-							otherGroup.removeMessagesBundle(otherBundle);
-						}
-					}
+				// only owner thread of display, should initiate this, a received broadcast isn't
+				// broadcast again, otherwise endless loop
+				if (resourceBundle != null && Display.getCurrent() == display
+						&& ! SharedMsgEditorsManager.INSTANCE.isDelivering()) {
+					// removes msg bundle from others msg bundle group -> fires messagesBundleRemoved event
+					SharedMsgEditorsManager.INSTANCE.broadcastMessagesBundleRemoved(
+							resourceBundle.getId(), MessagesEditor.this, locale);
 				}
 			}
 		};
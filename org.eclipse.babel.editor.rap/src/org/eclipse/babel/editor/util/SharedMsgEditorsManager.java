@@ -1,34 +1,191 @@
 package org.eclipse.babel.editor.util;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.eclipse.babel.core.message.IMessagesBundle;
+import org.eclipse.babel.core.message.IMessagesBundleGroup;
 import org.eclipse.babel.editor.IMessagesEditor;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
 
+/**
+ * Registry of the messages editors, which have opened the same resource bundle in different
+ * UI sessions. The editors of a resource bundle are kept in a copy-on-write list, so they are
+ * read and iterated without locking. Editors are referenced weakly, an editor, which hasn't
+ * been removed on dispose, doesn't leak.
+ *
+ * Changes of a resource bundle are broadcast to the other editors of the bundle. Every editor
+ * receives them in the UI thread of its own display. While an editor receives a broadcast,
+ * {@link #isDelivering()} is true, so the editor doesn't broadcast the change again.
+ */
 public class SharedMsgEditorsManager {
 	public final static SharedMsgEditorsManager INSTANCE = new SharedMsgEditorsManager();
+
+	/** Change, which is delivered to an editor sharing the resource bundle */
+	private interface SharedEditorEvent {
+		void deliver(IMessagesEditor editor);
+	}
+
+	/** Registration of an editor and the display of its UI session */
+	private static class Registration {
+		final WeakReference<IMessagesEditor> editor;
+		final Display display;
+
+		Registration(IMessagesEditor editor, Display display) {
+			this.editor = new WeakReference<IMessagesEditor>(editor);
+			this.display = display;
+		}
+	}
+
 	/** A map with all opened editors and their RB ID as key; A RB can be opened by multiple Editors (therefore the List) */
-	private static Map<Long, List<IMessagesEditor>> openedMsgEditorsMap = new HashMap<Long, List<IMessagesEditor>>();
-	
+	private final ConcurrentMap<Long, CopyOnWriteArrayList<Registration>> openedMsgEditorsMap =
+			new ConcurrentHashMap<Long, CopyOnWriteArrayList<Registration>>();
+	/** true in the UI thread, while it delivers a broadcast to an editor */
+	private final ThreadLocal<Boolean> delivering = new ThreadLocal<Boolean>();
+
+	/**
+	 * Returns the opened editors of a resource bundle.
+	 * @param rbID id of the resource bundle
+	 * @return a new list of the editors, empty if the resource bundle isn't opened
+	 */
 	public List<IMessagesEditor> getSharedMessagesEditors(long rbID) {
-		return openedMsgEditorsMap.get(rbID);
+		List<IMessagesEditor> editors = new ArrayList<IMessagesEditor>();
+		List<Registration> registrations = openedMsgEditorsMap.get(rbID);
+		if (registrations == null)
+			return editors;
+
+		for (Registration registration : registrations) {
+			IMessagesEditor editor = registration.editor.get();
+			if (editor != null)
+				editors.add(editor);
+			else
+				unregister(rbID, registration);
+		}
+		return editors;
 	}
-	
-	public void addMessagesEditor(long rbID, IMessagesEditor msgEditor) {
-		List<IMessagesEditor> sharedEditors = openedMsgEditorsMap.get(rbID);
+
+	/**
+	 * Adds an editor of a resource bundle. Must be called in the UI thread of the editor,
+	 * broadcasts are delivered to the editor in this thread.
+	 * @param rbID id of the resource bundle
+	 * @param msgEditor the editor
+	 */
+	public synchronized void addMessagesEditor(long rbID, IMessagesEditor msgEditor) {
+		CopyOnWriteArrayList<Registration> sharedEditors = openedMsgEditorsMap.get(rbID);
 		if (sharedEditors == null) {
 			// lazy init
-			sharedEditors = new ArrayList<IMessagesEditor>();
+			sharedEditors = new CopyOnWriteArrayList<Registration>();
 			openedMsgEditorsMap.put(rbID, sharedEditors);
 		}
-		sharedEditors.add(msgEditor);
+		sharedEditors.add(new Registration(msgEditor, Display.getCurrent()));
 	}
-	
-	public void removeMessagesEditor(long rbID, IMessagesEditor msgEditor) {
-		List<IMessagesEditor> sharedEditors = openedMsgEditorsMap.get(rbID);
-		if (sharedEditors != null)
-			sharedEditors.remove(msgEditor);
+
+	public synchronized void removeMessagesEditor(long rbID, IMessagesEditor msgEditor) {
+		CopyOnWriteArrayList<Registration> sharedEditors = openedMsgEditorsMap.get(rbID);
+		if (sharedEditors == null)
+			return;
+
+		for (Registration registration : sharedEditors) {
+			IMessagesEditor editor = registration.editor.get();
+			if (editor == null || editor == msgEditor)
+				sharedEditors.remove(registration);
+		}
+		if (sharedEditors.isEmpty())
+			openedMsgEditorsMap.remove(rbID);
+	}
+
+	private synchronized void unregister(long rbID, Registration registration) {
+		CopyOnWriteArrayList<Registration> sharedEditors = openedMsgEditorsMap.get(rbID);
+		if (sharedEditors != null && sharedEditors.remove(registration) && sharedEditors.isEmpty())
+			openedMsgEditorsMap.remove(rbID);
+	}
+
+	/**
+	 * Returns true if the current thread delivers a broadcast. An editor mustn't broadcast
+	 * the changes, which it has received by a broadcast.
+	 * @return true if a broadcast is being delivered
+	 */
+	public boolean isDelivering() {
+		return delivering.get() != null;
+	}
+
+	/**
+	 * Adds a messages bundle of a new locale to the other editors of the resource bundle.
+	 * @param rbID id of the resource bundle
+	 * @param source the editor, to which the messages bundle has been added
+	 * @param locale locale of the new messages bundle
+	 */
+	public void broadcastMessagesBundleAdded(long rbID, IMessagesEditor source, final Locale locale) {
+		broadcast(rbID, source, new SharedEditorEvent() {
+			@Override
+			public void deliver(IMessagesEditor editor) {
+				// add locale to create new msg bundle, can't use the same msg bundle with same text editor resource
+				editor.getBundleGroup().addMessagesBundle(locale);
+			}
+		});
+	}
+
+	/**
+	 * Removes the messages bundle of a locale from the other editors of the resource bundle.
+	 * @param rbID id of the resource bundle
+	 * @param source the editor, from which the messages bundle has been removed
+	 * @param locale locale of the removed messages bundle
+	 */
+	public void broadcastMessagesBundleRemoved(long rbID, IMessagesEditor source, final Locale locale) {
+		broadcast(rbID, source, new SharedEditorEvent() {
+			@Override
+			public void deliver(IMessagesEditor editor) {
+				IMessagesBundleGroup group = editor.getBundleGroup();
+				IMessagesBundle bundle = group.getMessagesBundle(locale);
+				if (bundle != null)
+					group.removeMessagesBundle(bundle);
+			}
+		});
+	}
+
+	/**
+	 * Delivers an event to all editors of a resource bundle except the source, in the
+	 * UI threads of the editors.
+	 */
+	private void broadcast(long rbID, IMessagesEditor source, final SharedEditorEvent event) {
+		List<Registration> registrations = openedMsgEditorsMap.get(rbID);
+		if (registrations == null)
+			return;
+
+		for (final Registration registration : registrations) {
+			IMessagesEditor editor = registration.editor.get();
+			if (editor == null || registration.display == null || registration.display.isDisposed()) {
+				unregister(rbID, registration);
+				continue;
+			}
+			if (editor == source)
+				continue;
+
+			try {
+				registration.display.asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						IMessagesEditor editor = registration.editor.get();
+						if (editor == null)
+							return;
+						delivering.set(Boolean.TRUE);
+						try {
+							event.deliver(editor);
+						} finally {
+							delivering.remove();
+						}
+					}
+				});
+			} catch (SWTException e) {
+				// display has been disposed in the meantime
+				unregister(rbID, registration);
+			}
+		}
 	}
 }
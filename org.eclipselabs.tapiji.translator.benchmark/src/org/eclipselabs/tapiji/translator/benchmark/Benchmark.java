@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.benchmark;
+
+/**
+ * A single benchmarked operation, executed repeatedly by the
+ * {@link BenchmarkRunner}.
+ */
+public abstract class Benchmark {
+
+	private final String name;
+
+	public Benchmark(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Prepares the data of the benchmark, not measured.
+	 */
+	public void setUp() throws Exception {
+	}
+
+	/**
+	 * Executes the operation once.
+	 *
+	 * @return any value derived from the result, it gets consumed by the
+	 *         runner so that the JIT can't eliminate the operation
+	 */
+	public abstract int run() throws Exception;
+
+	/**
+	 * Releases the data of the benchmark, not measured.
+	 */
+	public void tearDown() throws Exception {
+	}
+}
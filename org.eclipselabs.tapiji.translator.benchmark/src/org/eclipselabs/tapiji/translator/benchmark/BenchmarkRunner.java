@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.benchmark;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs benchmarks in warmup and measurement iterations of a fixed duration and
+ * reports the average time per operation.
+ *
+ * Supported arguments: <code>-wi &lt;warmup iterations&gt;</code>,
+ * <code>-i &lt;measurement iterations&gt;</code>,
+ * <code>-t &lt;milliseconds per iteration&gt;</code> and a regular expression
+ * selecting the benchmarks by name.
+ */
+public class BenchmarkRunner {
+
+	public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+	public static final int DEFAULT_MEASUREMENT_ITERATIONS = 10;
+	public static final long DEFAULT_ITERATION_MILLIS = 500;
+
+	private int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+	private int measurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+	private long iterationMillis = DEFAULT_ITERATION_MILLIS;
+	private Pattern filter;
+	private final PrintStream out;
+
+	/** Consumes the benchmark results */
+	private volatile int sink;
+
+	public BenchmarkRunner(PrintStream out) {
+		this.out = out;
+	}
+
+	public BenchmarkRunner(PrintStream out, String[] args) {
+		this(out);
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-wi") && i + 1 < args.length)
+				warmupIterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-i") && i + 1 < args.length)
+				measurementIterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-t") && i + 1 < args.length)
+				iterationMillis = Long.parseLong(args[++i]);
+			else
+				filter = Pattern.compile(args[i]);
+		}
+	}
+
+	/**
+	 * Runs all benchmarks (matching the filter) and prints one line per
+	 * benchmark.
+	 */
+	public void runAll(List<Benchmark> benchmarks) throws Exception {
+		out.println(String.format("%-55s %15s %12s", "Benchmark", "ns/op",
+		        "error"));
+		for (Benchmark benchmark : benchmarks) {
+			if (filter != null
+			        && !filter.matcher(benchmark.getName()).find())
+				continue;
+
+			double[] result = run(benchmark);
+			out.println(String.format("%-55s %15.1f %12.1f",
+			        benchmark.getName(), result[0], result[1]));
+		}
+	}
+
+	/**
+	 * Runs a single benchmark.
+	 *
+	 * @return the mean time per operation and its standard deviation in
+	 *         nanoseconds
+	 */
+	public double[] run(Benchmark benchmark) throws Exception {
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < warmupIterations; i++)
+				iterate(benchmark);
+
+			double[] samples = new double[measurementIterations];
+			for (int i = 0; i < measurementIterations; i++)
+				samples[i] = iterate(benchmark);
+
+			double mean = 0;
+			for (double sample : samples)
+				mean += sample;
+			mean /= samples.length;
+
+			double variance = 0;
+			for (double sample : samples)
+				variance += (sample - mean) * (sample - mean);
+			double error = samples.length > 1 ? Math
+			        .sqrt(variance / (samples.length - 1)) : 0;
+
+			return new double[] { mean, error };
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	private double iterate(Benchmark benchmark) throws Exception {
+		long duration = iterationMillis * 1000000L;
+		long operations = 0;
+		int result = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			result += benchmark.run();
+			operations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < duration);
+
+		sink += result;
+		return (double) elapsed / operations;
+	}
+
+	public static void run(List<Benchmark> benchmarks, String[] args)
+	        throws Exception {
+		new BenchmarkRunner(System.out, args).runAll(benchmarks);
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.babel.editor.widgets.suggestion.model.Suggestion;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipselabs.tapiji.translator.core.GlossaryManager;
+import org.eclipselabs.tapiji.translator.model.Glossary;
+import org.eclipselabs.tapiji.translator.model.Term;
+import org.eclipselabs.tapiji.translator.model.Translation;
+import org.eclipselabs.tapiji.translator.suggestionprovider.glossary.GlossarySuggestionProvider;
+import org.eclipselabs.tapiji.translator.views.widgets.filter.ExactMatcher;
+import org.eclipselabs.tapiji.translator.views.widgets.filter.FuzzyMatcher;
+import org.eclipselabs.tapiji.translator.views.widgets.sorter.GlossaryEntrySorter;
+import org.eclipselabs.tapiji.translator.views.widgets.sorter.SortInfo;
+
+/**
+ * Benchmarks of the glossary: loading and saving, searching, sorting and
+ * suggestions.
+ *
+ * The glossary sizes are configured by the system properties
+ * <code>tapiji.benchmark.terms</code> (comma separated list, default
+ * "1000,10000") and <code>tapiji.benchmark.locales</code> (default 3). The
+ * program arguments are passed to the {@link BenchmarkRunner}. The matcher and
+ * suggestion benchmarks need a display.
+ */
+public class GlossaryBenchmark {
+
+	private static final long SEED = 4711;
+
+	public static List<Benchmark> suite(final int terms, final int locales) {
+		final String suffix = "[terms=" + terms + ",locales=" + locales + "]";
+		final Glossary glossary = new GlossaryGenerator(SEED)
+		        .setTermCount(terms).setLocaleCount(locales).generate();
+		final Term[] allTerms = GlossaryGenerator.flatten(glossary);
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+		benchmarks.add(new Benchmark("glossary.save" + suffix) {
+			private File file;
+			private GlossaryManager manager;
+
+			@Override
+			public void setUp() throws Exception {
+				file = File.createTempFile("glossary", ".xml");
+				manager = new GlossaryManager(file, true);
+				manager.setGlossary(glossary);
+			}
+
+			@Override
+			public int run() throws Exception {
+				manager.saveGlossary();
+				return (int) file.length();
+			}
+
+			@Override
+			public void tearDown() {
+				file.delete();
+			}
+		});
+
+		benchmarks.add(new Benchmark("glossary.load" + suffix) {
+			private File file;
+
+			@Override
+			public void setUp() throws Exception {
+				file = GlossaryGenerator.write(glossary,
+				        File.createTempFile("glossary", ".xml"));
+			}
+
+			@Override
+			public int run() throws Exception {
+				return new GlossaryManager(file, false).getGlossary().terms
+				        .size();
+			}
+
+			@Override
+			public void tearDown() {
+				file.delete();
+			}
+		});
+
+		benchmarks.add(new MatcherBenchmark("matcher.exact" + suffix,
+		        allTerms, false));
+		benchmarks.add(new MatcherBenchmark("matcher.fuzzy" + suffix,
+		        allTerms, true));
+
+		benchmarks.add(new Benchmark("sorter.cold" + suffix) {
+			@Override
+			public int run() {
+				GlossaryEntrySorter sorter = createSorter(glossary, 1);
+				Object[] elements = glossary.getAllTerms();
+				sorter.sort(null, elements);
+				return elements.length;
+			}
+		});
+
+		benchmarks.add(new Benchmark("sorter.warm" + suffix) {
+			private GlossaryEntrySorter sorter;
+
+			@Override
+			public void setUp() {
+				sorter = createSorter(glossary, 1);
+			}
+
+			@Override
+			public int run() {
+				Object[] elements = glossary.getAllTerms();
+				sorter.sort(null, elements);
+				return elements.length;
+			}
+		});
+
+		benchmarks.add(new Benchmark("suggestion.glossary" + suffix) {
+			private File file;
+			private GlossarySuggestionProvider provider;
+			private String[] sentences;
+			private int next;
+
+			@Override
+			public void setUp() throws Exception {
+				file = GlossaryGenerator.write(glossary,
+				        File.createTempFile("glossary", ".xml"));
+				provider = new GlossarySuggestionProvider();
+				provider.setGlossaryFile(file.getAbsolutePath());
+
+				GlossaryGenerator generator = new GlossaryGenerator(SEED);
+				sentences = new String[100];
+				for (int i = 0; i < sentences.length; i++)
+					sentences[i] = generator.createSentence(glossary, 4);
+			}
+
+			@Override
+			public int run() {
+				String sentence = sentences[next++ % sentences.length];
+				Suggestion suggestion = provider.getSuggestion(sentence,
+				        locales > 1 ? glossary.info.translations.get(1) : "de");
+				return suggestion.getText().length();
+			}
+
+			@Override
+			public void tearDown() {
+				file.delete();
+			}
+		});
+
+		return benchmarks;
+	}
+
+	private static GlossaryEntrySorter createSorter(Glossary glossary,
+	        int column) {
+		SortInfo sortInfo = new SortInfo();
+		sortInfo.setColIdx(Math.min(column,
+		        glossary.info.translations.size() - 1));
+		return new GlossaryEntrySorter(null, sortInfo, 0,
+		        glossary.info.translations);
+	}
+
+	/**
+	 * Applies a matcher to all terms, the same way the glossary viewer does
+	 * when the search pattern changes.
+	 */
+	private static class MatcherBenchmark extends Benchmark {
+
+		private final Term[] terms;
+		private final boolean fuzzy;
+		private Shell shell;
+		private ExactMatcher matcher;
+
+		public MatcherBenchmark(String name, Term[] terms, boolean fuzzy) {
+			super(name);
+			this.terms = terms;
+			this.fuzzy = fuzzy;
+		}
+
+		@Override
+		public void setUp() {
+			shell = new Shell(Display.getDefault());
+			TreeViewer viewer = new TreeViewer(shell);
+			matcher = fuzzy ? new FuzzyMatcher(viewer) : new ExactMatcher(
+			        viewer);
+
+			// search for a part of an existing translation
+			Translation translation = terms[terms.length / 2].translations
+			        .get(0);
+			String value = translation.value;
+			matcher.setPattern(value.substring(0,
+			        Math.min(value.length(), 6)));
+		}
+
+		@Override
+		public int run() {
+			int selected = 0;
+			for (Term term : terms) {
+				if (matcher.select(null, null, term))
+					selected++;
+			}
+			return selected;
+		}
+
+		@Override
+		public void tearDown() {
+			shell.dispose();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String[] sizes = System.getProperty("tapiji.benchmark.terms",
+		        "1000,10000").split(",");
+		int locales = Integer.getInteger("tapiji.benchmark.locales", 3);
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (String size : sizes)
+			benchmarks.addAll(suite(Integer.parseInt(size.trim()), locales));
+		benchmarks.addAll(TokenizerBenchmark.suite());
+
+		BenchmarkRunner.run(benchmarks, args);
+	}
+}
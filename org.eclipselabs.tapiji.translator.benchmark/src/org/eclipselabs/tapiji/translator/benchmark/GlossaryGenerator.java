@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipselabs.tapiji.translator.core.GlossaryManager;
+import org.eclipselabs.tapiji.translator.model.Glossary;
+import org.eclipselabs.tapiji.translator.model.Term;
+import org.eclipselabs.tapiji.translator.model.Translation;
+
+/**
+ * Generates synthetic glossaries. The same seed always produces the same
+ * glossary.
+ */
+public class GlossaryGenerator {
+
+	private static final String[] LOCALES = { "de", "fr", "it", "es",
+	        "pt_BR", "nl", "sv", "pl", "cs", "en_US", "de_AT", "fr_CA" };
+
+	private static final String[] SYLLABLES = { "an", "be", "ci", "do", "el",
+	        "fa", "ge", "hi", "in", "jo", "ka", "le", "mo", "ne", "or", "pu",
+	        "qu", "ra", "se", "ti", "un", "ve", "wa", "xe", "yo", "zu", "\u00e4",
+	        "\u00f6", "\u00fc", "\u00e9" };
+
+	private final Random random;
+	private int termCount = 1000;
+	private int localeCount = 3;
+	private int maxSubTerms = 2;
+	private int maxWords = 3;
+
+	public GlossaryGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Sets the total number of terms, including sub terms.
+	 */
+	public GlossaryGenerator setTermCount(int termCount) {
+		this.termCount = termCount;
+		return this;
+	}
+
+	/**
+	 * Sets the number of locales, including the "Default" locale.
+	 */
+	public GlossaryGenerator setLocaleCount(int localeCount) {
+		this.localeCount = Math.max(1,
+		        Math.min(localeCount, LOCALES.length + 1));
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of sub terms per top level term.
+	 */
+	public GlossaryGenerator setMaxSubTerms(int maxSubTerms) {
+		this.maxSubTerms = maxSubTerms;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of words per translation.
+	 */
+	public GlossaryGenerator setMaxWords(int maxWords) {
+		this.maxWords = Math.max(1, maxWords);
+		return this;
+	}
+
+	public Glossary generate() {
+		Glossary glossary = new Glossary();
+		for (int i = 1; i < localeCount; i++)
+			glossary.info.translations.add(LOCALES[i - 1]);
+
+		int count = 0;
+		while (count < termCount) {
+			Term term = createTerm(glossary.info.translations);
+			glossary.terms.add(term);
+			count++;
+
+			int subTerms = maxSubTerms > 0 ? random.nextInt(maxSubTerms + 1)
+			        : 0;
+			for (int i = 0; i < subTerms && count < termCount; i++) {
+				term.subTerms.add(createTerm(glossary.info.translations));
+				count++;
+			}
+		}
+		return glossary;
+	}
+
+	/**
+	 * Writes the glossary to a file the same way the glossary view does.
+	 */
+	public static File write(Glossary glossary, File file) throws Exception {
+		GlossaryManager manager = new GlossaryManager(file, true);
+		manager.setGlossary(glossary);
+		manager.saveGlossary();
+		return file;
+	}
+
+	/**
+	 * Creates a sentence with words of the glossary and random filler words,
+	 * e.g. to request suggestions.
+	 */
+	public String createSentence(Glossary glossary, int fillerWords) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < fillerWords; i++) {
+			if (i > 0)
+				sb.append(' ');
+			sb.append(createWord());
+		}
+
+		if (!glossary.terms.isEmpty()) {
+			Term term = glossary.terms.get(random.nextInt(glossary.terms
+			        .size()));
+			Translation translation = term.findTranslation("Default");
+			if (translation != null)
+				sb.append(' ').append(translation.value);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns all terms of the glossary, sub terms included.
+	 */
+	public static Term[] flatten(Glossary glossary) {
+		List<Term> terms = new ArrayList<Term>();
+		for (Term term : glossary.terms)
+			flatten(term, terms);
+		return terms.toArray(new Term[terms.size()]);
+	}
+
+	private static void flatten(Term term, List<Term> terms) {
+		terms.add(term);
+		for (Term subTerm : term.subTerms)
+			flatten(subTerm, terms);
+	}
+
+	private Term createTerm(List<String> locales) {
+		Term term = new Term();
+		for (String locale : locales) {
+			Translation translation = new Translation();
+			translation.id = locale;
+			translation.value = createValue();
+			term.translations.add(translation);
+		}
+		return term;
+	}
+
+	private String createValue() {
+		int words = 1 + random.nextInt(maxWords);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			if (i > 0)
+				sb.append(' ');
+			sb.append(createWord());
+		}
+		return sb.toString();
+	}
+
+	private String createWord() {
+		int syllables = 2 + random.nextInt(3);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < syllables; i++)
+			sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.eclipselabs.tapiji.translator.utils.FileUtils;
+import org.eclipselabs.tapiji.translator.utils.PatternCache;
+import org.eclipselabs.tapiji.translator.utils.Tokenizer;
+
+/**
+ * Compares the tokenization of messages and the matching of properties file
+ * names with implicitly compiled regular expressions against the
+ * {@link Tokenizer} and the {@link PatternCache}.
+ */
+public class TokenizerBenchmark {
+
+	private static final String[] WORDS = { "the", "file", "could", "not",
+	        "be", "saved", "please", "try", "again", "Instances", "of",
+	        "this", "class", "are", "selectable", "{0}", "user's", "e-mail" };
+
+	private static final String[] PUNCTUATION = { " ", " ", " ", ", ", ". ",
+	        "! ", " - ", ": " };
+
+	private static final String[] LOCALES = { "", "_de", "_en_US", "_fr_FR",
+	        "_it", "_es_ES_traditional", "_pt_BR" };
+
+	/**
+	 * Creates messages of 3 to 20 words with random punctuation.
+	 */
+	static String[] createMessages(int count, long seed) {
+		Random random = new Random(seed);
+		String[] messages = new String[count];
+		for (int i = 0; i < count; i++) {
+			StringBuilder sb = new StringBuilder();
+			int words = 3 + random.nextInt(18);
+			for (int w = 0; w < words; w++) {
+				if (w > 0)
+					sb.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			messages[i] = sb.toString();
+		}
+		return messages;
+	}
+
+	/**
+	 * Creates properties file names of a few bundles in different locales.
+	 */
+	static String[] createFileNames(int count, long seed) {
+		Random random = new Random(seed);
+		String[] names = new String[count];
+		for (int i = 0; i < count; i++) {
+			String bundle = random.nextInt(4) == 0 ? "other" : "messages";
+			names[i] = bundle + LOCALES[random.nextInt(LOCALES.length)]
+			        + ".properties";
+		}
+		return names;
+	}
+
+	public static List<Benchmark> suite() {
+		final String[] messages = createMessages(1000, 42);
+		final String[] fileNames = createFileNames(1000, 42);
+		final String regex = FileUtils.PROPERTIES_FILE_REGEX.replace(
+		        "BUNDLENAME", "messages").replace("FILEEXTENSION",
+		        "properties");
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+		benchmarks.add(new Benchmark("tokenize.stringSplit") {
+			@Override
+			public int run() {
+				int count = 0;
+				for (String message : messages)
+					count += message.split("[\\s\\p{Punct}]+").length;
+				return count;
+			}
+		});
+
+		benchmarks.add(new Benchmark("tokenize.precompiledSplit") {
+			@Override
+			public int run() {
+				int count = 0;
+				for (String message : messages)
+					count += Tokenizer.WORD_DELIMITER.split(message).length;
+				return count;
+			}
+		});
+
+		benchmarks.add(new Benchmark("tokenize.tokenizer") {
+			private final Tokenizer tokenizer = new Tokenizer(Tokenizer.WORDS);
+
+			@Override
+			public int run() {
+				int count = 0;
+				for (String message : messages) {
+					tokenizer.reset(message);
+					while (tokenizer.next())
+						count++;
+				}
+				return count;
+			}
+		});
+
+		benchmarks.add(new Benchmark("tokenize.equalsIgnoreCase.split") {
+			@Override
+			public int run() {
+				int count = 0;
+				for (String message : messages) {
+					for (String token : message.split("[\\s\\p{Punct}]+")) {
+						if (token.trim().equalsIgnoreCase("class"))
+							count++;
+					}
+				}
+				return count;
+			}
+		});
+
+		benchmarks.add(new Benchmark("tokenize.equalsIgnoreCase.tokenizer") {
+			private final Tokenizer tokenizer = new Tokenizer(Tokenizer.WORDS);
+
+			@Override
+			public int run() {
+				int count = 0;
+				for (String message : messages) {
+					tokenizer.reset(message);
+					while (tokenizer.next()) {
+						if (tokenizer.tokenEquals("class", true))
+							count++;
+					}
+				}
+				return count;
+			}
+		});
+
+		benchmarks.add(new Benchmark("fileName.stringMatches") {
+			@Override
+			public int run() {
+				int count = 0;
+				for (String name : fileNames) {
+					if (name.matches(regex))
+						count++;
+				}
+				return count;
+			}
+		});
+
+		benchmarks.add(new Benchmark("fileName.cachedPattern") {
+			@Override
+			public int run() {
+				int count = 0;
+				Pattern pattern = PatternCache.getPattern(regex);
+				for (String name : fileNames) {
+					if (pattern.matcher(name).matches())
+						count++;
+				}
+				return count;
+			}
+		});
+
+		return benchmarks;
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner.run(suite(), args);
+	}
+}
@@ -0,0 +1,194 @@
+package org.eclipselabs.tapiji.translator.rap.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.teneo.hibernate.resource.HibernateResource;
+import org.eclipse.emf.teneo.resource.StoreResource;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DataStoreConfig;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.PropertiesFileCache;
+import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+import org.eclipselabs.tapiji.translator.rap.model.user.UserFactory;
+
+/**
+ * Measures the throughput of properties file lookups by id and by path against an embedded
+ * H2 database. Compares the parameterized queries of {@link DBUtils} with queries, which are
+ * concatenated into the URI of a new hibernate resource for every lookup, and with lookups
+ * through the {@link PropertiesFileCache}.
+ *
+ * The number of resource bundles is configured by the system property
+ * <code>tapiji.benchmark.bundles</code> (default 200), every bundle has 5 properties files.
+ * The database can be changed by the data store profile (see {@link DataStoreConfig}), the 
+ * driver of the database must be on the classpath.
+ */
+public class PropertiesFileLookupBenchmark {
+
+	private static final String[] LOCALES = { "", "_de", "_en_US", "_fr", "_it" };
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+	private static final int LOOKUPS_PER_ROUND = 2000;
+
+	/** Lookup of a properties file, i is the index of the file */
+	private interface Lookup {
+		PropertiesFile lookup(int i);
+	}
+
+	private final List<Long> ids = new ArrayList<Long>();
+	private final List<String> paths = new ArrayList<String>();
+	private final ResourceSet resourceSet = new ResourceSetImpl();
+
+	/**
+	 * Stores resource bundles with their properties files in the database.
+	 * @param bundles number of resource bundles
+	 */
+	public void populate(int bundles) throws IOException {
+		String uriStr = "hibernate://?"+HibernateResource.DS_NAME_PARAM+"="+DBUtils.DS_NAME;
+		Resource resource = resourceSet.createResource(URI.createURI(uriStr));
+		resource.load(null);
+
+		List<PropertiesFile> files = new ArrayList<PropertiesFile>();
+		for (int i = 0; i < bundles; i++) {
+			ResourceBundle rb = UserFactory.eINSTANCE.createResourceBundle();
+			rb.setName("messages" + i);
+			for (String locale : LOCALES) {
+				PropertiesFile file = UserFactory.eINSTANCE.createPropertiesFile();
+				// backslashes had to be escaped by the concatenated queries
+				file.setPath("C:\\workspace\\user\\messages" + i + locale + ".properties");
+				rb.getPropertiesFiles().add(file);
+				files.add(file);
+			}
+			resource.getContents().add(rb);
+		}
+		resource.save(null);
+
+		for (PropertiesFile file : files) {
+			ids.add(file.getId());
+			paths.add(file.getPath());
+		}
+		resource.unload();
+		resourceSet.getResources().remove(resource);
+	}
+
+	/**
+	 * Looks up a properties file the way DBUtils did before, by creating and loading a
+	 * hibernate resource with the query in its URI.
+	 */
+	private PropertiesFile queryByResource(String whereQuery) {
+		String query = "FROM PropertiesFile p WHERE " + whereQuery;
+		String uriStr = "hibernate://?"+HibernateResource.DS_NAME_PARAM+"="+DBUtils.DS_NAME+"&"+
+				StoreResource.LOAD_STRATEGY_PARAM+"="+StoreResource.ADD_TO_CONTENTS+"&query1="+query;
+		Resource resource = resourceSet.createResource(URI.createURI(uriStr));
+		try {
+			resource.load(null);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		PropertiesFile propFile = null;
+		List<EObject> results = resource.getContents();
+		if (! results.isEmpty() && results.get(0) instanceof PropertiesFile)
+			propFile = (PropertiesFile) results.get(0);
+		if (propFile != null)
+			EcoreUtil.resolveAll(propFile.getResourceBundle());
+
+		resource.unload();
+		resourceSet.getResources().remove(resource);
+		return propFile;
+	}
+
+	/**
+	 * Runs the lookup for random files and prints the throughput of every round.
+	 * @return mean throughput in lookups per second
+	 */
+	private double measure(String name, Lookup lookup) {
+		Random random = new Random(42);
+		int files = ids.size();
+		double sum = 0;
+
+		for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < LOOKUPS_PER_ROUND; i++) {
+				if (lookup.lookup(random.nextInt(files)) == null)
+					throw new IllegalStateException(name + ": properties file not found");
+			}
+			double opsPerSecond = LOOKUPS_PER_ROUND * 1e9 / (System.nanoTime() - start);
+
+			if (round >= 0) {
+				sum += opsPerSecond;
+				System.out.println(String.format("%-30s round %d: %10.1f ops/s", name, round, opsPerSecond));
+			}
+		}
+
+		double mean = sum / ROUNDS;
+		System.out.println(String.format("%-30s mean:    %10.1f ops/s", name, mean));
+		return mean;
+	}
+
+	public void run() {
+		measure("byId.concatenated", new Lookup() {
+			@Override
+			public PropertiesFile lookup(int i) {
+				return queryByResource("p.id='" + ids.get(i) + "'");
+			}
+		});
+		measure("byId.parameterized", new Lookup() {
+			@Override
+			public PropertiesFile lookup(int i) {
+				// every lookup is a cache miss
+				PropertiesFileCache.INSTANCE.clear();
+				return DBUtils.getPropertiesFile(ids.get(i));
+			}
+		});
+		measure("byId.cached", new Lookup() {
+			@Override
+			public PropertiesFile lookup(int i) {
+				return DBUtils.getPropertiesFile(ids.get(i));
+			}
+		});
+		measure("byPath.concatenated", new Lookup() {
+			@Override
+			public PropertiesFile lookup(int i) {
+				return queryByResource("p.path='" + paths.get(i).replaceAll("\\\\", "\\\\\\\\") + "'");
+			}
+		});
+		measure("byPath.parameterized", new Lookup() {
+			@Override
+			public PropertiesFile lookup(int i) {
+				PropertiesFileCache.INSTANCE.clear();
+				return DBUtils.getPropertiesFile(paths.get(i));
+			}
+		});
+		measure("byPath.cached", new Lookup() {
+			@Override
+			public PropertiesFile lookup(int i) {
+				return DBUtils.getPropertiesFile(paths.get(i));
+			}
+		});
+	}
+
+	public static void main(String[] args) throws Exception {
+		int bundles = Integer.getInteger("tapiji.benchmark.bundles", 200);
+
+		// in-memory H2 database, unless another profile is selected
+		if (System.getProperty(DataStoreConfig.PROFILE_PROPERTY) == null)
+			System.setProperty(DataStoreConfig.PROFILE_PROPERTY, DataStoreConfig.H2_MEMORY);
+		DBUtils.initDataStore();
+
+		PropertiesFileLookupBenchmark benchmark = new PropertiesFileLookupBenchmark();
+		benchmark.populate(bundles);
+		benchmark.run();
+
+		DBUtils.getDataStore().close();
+	}
+}
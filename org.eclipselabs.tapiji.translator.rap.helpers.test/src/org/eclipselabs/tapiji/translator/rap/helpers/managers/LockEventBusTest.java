@@ -0,0 +1,108 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipselabs.tapiji.translator.rap.model.user.User;
+import org.eclipselabs.tapiji.translator.rap.model.user.UserFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LockEventBusTest {
+
+	private static final long PROPS_ID = 1;
+	private static final long LEASE_MILLIS = 60000;
+
+	private LockEventBus bus;
+	private User userA;
+	private User userB;
+
+	/** Records the delivered events, the listener is called by the dispatcher thread */
+	private static class RecordingListener implements IPropertiesFileLockListener {
+		final List<PFLock> events = new ArrayList<PFLock>();
+		final CountDownLatch delivered;
+
+		RecordingListener(int expectedEvents) {
+			delivered = new CountDownLatch(expectedEvents);
+		}
+
+		@Override
+		public synchronized void lockAcquired(PFLock lock) {
+			events.add(lock);
+			delivered.countDown();
+		}
+
+		@Override
+		public synchronized void lockReleased(PFLock lock) {
+			events.add(lock);
+			delivered.countDown();
+		}
+
+		synchronized List<PFLock> getEvents() {
+			return new ArrayList<PFLock>(events);
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		bus = new LockEventBus(new LockMetrics(null));
+		userA = createUser("userA");
+		userB = createUser("userB");
+	}
+
+	private static User createUser(String username) {
+		User user = UserFactory.eINSTANCE.createUser();
+		user.setUsername(username);
+		return user;
+	}
+
+	@Test
+	public void testReleaseAndAcquireByAnotherUserInOneTick() throws Exception {
+		RecordingListener listener = new RecordingListener(2);
+		bus.addListener(PROPS_ID, listener);
+
+		PFLock lock = new PFLock(PROPS_ID, null);
+		assertTrue(lock.tryAcquire(userA, "sessionA", LEASE_MILLIS));
+		bus.post(lock.snapshot(true));
+		assertTrue(lock.release(userA));
+		bus.post(lock.snapshot(false));
+		assertTrue(lock.tryAcquire(userB, "sessionB", LEASE_MILLIS));
+		bus.post(lock.snapshot(true));
+
+		assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+		// wait for another tick, no further events may arrive
+		Thread.sleep(LockEventBus.TICK_MILLIS * 2);
+
+		List<PFLock> events = listener.getEvents();
+		assertEquals(2, events.size());
+		// release of user A is delivered before the acquire of user B
+		assertTrue(events.get(0).isReleased());
+		assertEquals(userA, events.get(0).getOwner());
+		assertTrue(events.get(1).isLocked());
+		assertEquals(userB, events.get(1).getOwner());
+	}
+
+	@Test
+	public void testAcquireAndReleaseBySameUserAreCoalesced() throws Exception {
+		RecordingListener listener = new RecordingListener(1);
+		bus.addListener(PROPS_ID, listener);
+
+		PFLock lock = new PFLock(PROPS_ID, null);
+		assertTrue(lock.tryAcquire(userA, "sessionA", LEASE_MILLIS));
+		bus.post(lock.snapshot(true));
+		assertTrue(lock.release(userA));
+		bus.post(lock.snapshot(false));
+
+		assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+		Thread.sleep(LockEventBus.TICK_MILLIS * 2);
+
+		List<PFLock> events = listener.getEvents();
+		assertEquals(1, events.size());
+		assertTrue(events.get(0).isReleased());
+		assertEquals(userA, events.get(0).getOwner());
+	}
+}
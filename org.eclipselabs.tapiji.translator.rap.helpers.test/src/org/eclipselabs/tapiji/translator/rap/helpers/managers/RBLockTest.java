@@ -0,0 +1,91 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipselabs.tapiji.translator.rap.model.user.User;
+import org.eclipselabs.tapiji.translator.rap.model.user.UserFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RBLockTest {
+
+	private static final long RB_ID = 1;
+	private static final long OTHER_RB_ID = 2;
+	private static final long LEASE_MILLIS = 60000;
+
+	private RBLock rbLock;
+
+	@Before
+	public void setUp() throws Exception {
+		rbLock = new RBLock(RB_ID);
+	}
+
+	private static User createUser(String username) {
+		User user = UserFactory.eINSTANCE.createUser();
+		user.setUsername(username);
+		return user;
+	}
+
+	@Test
+	public void testReleaseByAnotherInstanceOfTheHolder() {
+		// every session loads its own user object
+		User userOfSessionA = createUser("userA");
+		User userOfSessionB = createUser("userA");
+		PFLock lock1 = new PFLock(1, null, rbLock);
+		PFLock lock2 = new PFLock(2, null, rbLock);
+
+		assertTrue(rbLock.acquire(lock1, userOfSessionA, "sessionA", LEASE_MILLIS));
+		assertTrue(rbLock.acquire(lock2, userOfSessionA, "sessionA", LEASE_MILLIS));
+		assertEquals(2, rbLock.getFilesHeldBy(userOfSessionB));
+		assertTrue(rbLock.isHeldOnlyBy(userOfSessionB));
+
+		assertTrue(rbLock.release(lock1, userOfSessionB));
+		assertEquals(1, rbLock.getLockedFiles());
+		assertEquals(1, rbLock.getFilesHeldBy(userOfSessionA));
+
+		assertNotNull(rbLock.expire(lock2, Long.MAX_VALUE));
+		assertEquals(0, rbLock.getLockedFiles());
+		assertEquals(0, rbLock.getFilesHeldBy(userOfSessionA));
+		assertTrue(rbLock.isHeldOnlyBy(createUser("userB")));
+	}
+
+	@Test
+	public void testAcquireAllRejectsLocksOfAnotherSummary() {
+		User user = createUser("userA");
+		RBLock otherRBLock = new RBLock(OTHER_RB_ID);
+		PFLock lock = new PFLock(1, null, rbLock);
+		PFLock otherLock = new PFLock(2, null, otherRBLock);
+
+		assertNull(rbLock.acquireAll(Arrays.asList(lock, otherLock), user, "sessionA", LEASE_MILLIS));
+		assertTrue(lock.isReleased());
+		assertTrue(otherLock.isReleased());
+		assertEquals(0, rbLock.getLockedFiles());
+		assertEquals(0, otherRBLock.getLockedFiles());
+	}
+
+	@Test
+	public void testAcquireAllCountsOnlyOwnLocks() {
+		User user = createUser("userA");
+		PFLock lock = new PFLock(1, null, rbLock);
+		PFLock lockWithoutSummary = new PFLock(2, null, null);
+
+		List<PFLock> acquired = rbLock.acquireAll(Arrays.asList(lock, lockWithoutSummary), user,
+				"sessionA", LEASE_MILLIS);
+		assertEquals(2, acquired.size());
+		assertEquals(1, rbLock.getLockedFiles());
+		assertEquals(1, rbLock.getFilesHeldBy(user));
+
+		// all locks are held already, nothing new is acquired or counted
+		assertTrue(rbLock.acquireAll(Arrays.asList(lock, lockWithoutSummary), user, "sessionA",
+				LEASE_MILLIS).isEmpty());
+		assertEquals(1, rbLock.getLockedFiles());
+
+		assertTrue(rbLock.release(lock, user));
+		assertEquals(0, rbLock.getLockedFiles());
+		assertTrue(lockWithoutSummary.release(user));
+		assertEquals(0, rbLock.getLockedFiles());
+	}
+}
@@ -1,5 +1,7 @@
 package org.eclipselabs.tapiji.translator.rap.helpers;
 
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.LockMetrics;
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.RBLockManager;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 
@@ -17,6 +19,8 @@ public class Activator implements BundleActivator {
 	 */
 	public void start(BundleContext bundleContext) throws Exception {
 		Activator.context = bundleContext;
+		// lock metrics can be inspected by JMX clients like JConsole
+		RBLockManager.INSTANCE.getMetrics().register(LockMetrics.OBJECT_NAME);
 	}
 
 	/*
@@ -24,6 +28,7 @@ public class Activator implements BundleActivator {
 	 * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext bundleContext) throws Exception {
+		LockMetrics.unregister(LockMetrics.OBJECT_NAME);
 		Activator.context = null;
 	}
 
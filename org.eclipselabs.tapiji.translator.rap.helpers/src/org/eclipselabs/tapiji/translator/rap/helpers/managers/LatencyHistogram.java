@@ -0,0 +1,133 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations with logarithmic buckets. Bucket i counts the durations from
+ * 2^(i-1) to 2^i - 1 nanoseconds, so the percentiles are accurate up to a factor of two.
+ * Recording doesn't block and doesn't allocate.
+ */
+public class LatencyHistogram {
+	private static final int BUCKETS = 64;
+
+	/** Read-only state of a histogram, durations in microseconds */
+	public static class Snapshot {
+		private final long count;
+		private final long meanMicros;
+		private final long maxMicros;
+		private final long p50Micros;
+		private final long p90Micros;
+		private final long p99Micros;
+
+		@ConstructorProperties({ "count", "meanMicros", "maxMicros", "p50Micros", "p90Micros", "p99Micros" })
+		public Snapshot(long count, long meanMicros, long maxMicros, long p50Micros, long p90Micros, long p99Micros) {
+			this.count = count;
+			this.meanMicros = meanMicros;
+			this.maxMicros = maxMicros;
+			this.p50Micros = p50Micros;
+			this.p90Micros = p90Micros;
+			this.p99Micros = p99Micros;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMeanMicros() {
+			return meanMicros;
+		}
+
+		public long getMaxMicros() {
+			return maxMicros;
+		}
+
+		public long getP50Micros() {
+			return p50Micros;
+		}
+
+		public long getP90Micros() {
+			return p90Micros;
+		}
+
+		public long getP99Micros() {
+			return p99Micros;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + ", mean=" + meanMicros + "us, p50=" + p50Micros + "us, p90=" + p90Micros
+					+ "us, p99=" + p99Micros + "us, max=" + maxMicros + "us";
+		}
+	}
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 * @param nanos duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long currentMax = max.get();
+		while (nanos > currentMax && ! max.compareAndSet(currentMax, nanos))
+			currentMax = max.get();
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the upper bound of the bucket, which contains the given percentile.
+	 * @param percentile percentile between 0 and 1
+	 * @return duration in nanoseconds
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++)
+			total += buckets.get(i);
+		if (total == 0)
+			return 0;
+
+		long rank = (long) Math.ceil(percentile * total);
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += buckets.get(i);
+			if (cumulative >= rank)
+				return i == 0 ? 0 : Math.min((1L << i) - 1, max.get());
+		}
+		return max.get();
+	}
+
+	public Snapshot getSnapshot() {
+		long n = count.get();
+		long mean = n > 0 ? sum.get() / n : 0;
+		return new Snapshot(n, toMicros(mean), toMicros(max.get()), toMicros(getPercentile(0.5)),
+				toMicros(getPercentile(0.9)), toMicros(getPercentile(0.99)));
+	}
+
+	/**
+	 * Resets all counters. Durations recorded concurrently may be lost partially.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			buckets.set(i, 0);
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,254 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Delivers lock events of the {@link RBLockManager} asynchronously. Events are queued by the thread,
+ * which acquired or released a lock, and dispatched by a single background thread once per tick
+ * ({@link #TICK_MILLIS}):
+ * <ul>
+ * <li>Consecutive events of the same properties file and the same holder (user and UI session)
+ * within one tick are coalesced, only the last state of the lock is delivered (e.g. an acquire
+ * followed by a release results in a release event). Events of different holders are never
+ * coalesced: if a lock is released and acquired by another user within one tick, the release is
+ * delivered before the acquire, so sharing editors reload the released file.</li>
+ * <li>Listeners registered from a UI thread are called in the UI thread of their display. All events
+ * of a tick for the same display are delivered by one runnable, so a UI session gets one batch per
+ * tick instead of a callback per listener and event.</li>
+ * <li>Listeners registered outside of a UI thread are called by the dispatcher thread.</li>
+ * </ul>
+ * The listeners receive a snapshot of the lock ({@link PFLock#snapshot(boolean)}), which reflects
+ * the state of the lock at the time of the event.
+ */
+class LockEventBus {
+	/** Time in milliseconds, in which events are collected before they are dispatched */
+	static final long TICK_MILLIS = 50;
+
+	private static final int CONCURRENCY_LEVEL = 64;
+
+	/** Listener together with the display of the UI session, which registered it */
+	private static class Registration {
+		final IPropertiesFileLockListener listener;
+		final Display display;
+		/** set on removal, so already dispatched batches skip the listener */
+		volatile boolean removed;
+
+		Registration(IPropertiesFileLockListener listener, Display display) {
+			this.listener = listener;
+			this.display = display;
+		}
+	}
+
+	/** Listener calls of one display within a tick */
+	private class Batch implements Runnable {
+		private final List<Registration> registrations = new ArrayList<Registration>();
+		private final List<PFLock> locks = new ArrayList<PFLock>();
+
+		void add(Registration registration, PFLock lock) {
+			registrations.add(registration);
+			locks.add(lock);
+		}
+
+		@Override
+		public void run() {
+			if (registrations.isEmpty())
+				return;
+			long start = System.nanoTime();
+			for (int i = 0; i < registrations.size(); i++) {
+				Registration registration = registrations.get(i);
+				if (registration.removed)
+					continue;
+				PFLock lock = locks.get(i);
+				try {
+					if (lock.isLocked())
+						registration.listener.lockAcquired(lock);
+					else
+						registration.listener.lockReleased(lock);
+				} catch (RuntimeException e) {
+					// one failing listener must not prevent delivery to the others
+					e.printStackTrace();
+				}
+			}
+			metrics.batchDelivered(registrations.size(), System.nanoTime() - start);
+		}
+	}
+
+	private final LockMetrics metrics;
+
+	private final ConcurrentMap<Long, Set<Registration>> lockListenerMap =
+			new ConcurrentHashMap<Long, Set<Registration>>(256, 0.75f, CONCURRENCY_LEVEL);
+	private final List<Registration> globalLockListeners = new CopyOnWriteArrayList<Registration>();
+
+	private final ConcurrentLinkedQueue<PFLock> queue = new ConcurrentLinkedQueue<PFLock>();
+	/** true if a dispatch is scheduled, which hasn't started to drain the queue yet */
+	private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+	private final ScheduledExecutorService executor;
+
+	private final Runnable dispatchTask = new Runnable() {
+		@Override
+		public void run() {
+			dispatch();
+		}
+	};
+
+	LockEventBus(LockMetrics metrics) {
+		this.metrics = metrics;
+		executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TapiJI lock event dispatcher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	void addListener(long propsID, IPropertiesFileLockListener listener) {
+		Set<Registration> registrations = lockListenerMap.get(propsID);
+		if (registrations == null) {
+			Set<Registration> newRegistrations = new CopyOnWriteArraySet<Registration>();
+			registrations = lockListenerMap.putIfAbsent(propsID, newRegistrations);
+			if (registrations == null)
+				registrations = newRegistrations;
+		}
+		if (find(registrations, listener) == null)
+			registrations.add(new Registration(listener, Display.getCurrent()));
+	}
+
+	void removeListener(long propsID, IPropertiesFileLockListener listener) {
+		Set<Registration> registrations = lockListenerMap.get(propsID);
+		if (registrations != null)
+			remove(registrations, listener);
+	}
+
+	void addGlobalListener(IPropertiesFileLockListener listener) {
+		globalLockListeners.add(new Registration(listener, Display.getCurrent()));
+	}
+
+	void removeGlobalListener(IPropertiesFileLockListener listener) {
+		remove(globalLockListeners, listener);
+	}
+
+	private static Registration find(Iterable<Registration> registrations, IPropertiesFileLockListener listener) {
+		for (Registration registration : registrations) {
+			if (registration.listener == listener)
+				return registration;
+		}
+		return null;
+	}
+
+	private static void remove(Collection<Registration> registrations, IPropertiesFileLockListener listener) {
+		Registration registration = find(registrations, listener);
+		if (registration != null) {
+			registration.removed = true;
+			registrations.remove(registration);
+		}
+	}
+
+	/**
+	 * Queues a lock event. Returns immediately, the listeners are called within the next tick.
+	 * @param snapshot state of the lock after it has been acquired or released
+	 */
+	void post(PFLock snapshot) {
+		queue.add(snapshot);
+		metrics.eventPosted();
+		if (dispatchScheduled.compareAndSet(false, true))
+			executor.schedule(dispatchTask, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private void dispatch() {
+		// events posted from now on are dispatched by the next tick
+		dispatchScheduled.set(false);
+
+		// coalesce events per properties file and holder, the last state of a holder wins
+		Map<Long, List<PFLock>> events = new LinkedHashMap<Long, List<PFLock>>();
+		int eventCount = 0;
+		PFLock event;
+		while ((event = queue.poll()) != null) {
+			// keep order of first occurrence, but deliver last state
+			List<PFLock> fileEvents = events.get(event.getPropertiesFileID());
+			if (fileEvents == null) {
+				fileEvents = new ArrayList<PFLock>(1);
+				events.put(event.getPropertiesFileID(), fileEvents);
+			}
+			int last = fileEvents.size() - 1;
+			if (last >= 0 && isSameHolder(fileEvents.get(last), event)) {
+				fileEvents.set(last, event);
+			} else {
+				fileEvents.add(event);
+				eventCount++;
+			}
+		}
+		if (events.isEmpty())
+			return;
+		metrics.eventsDispatched(eventCount);
+
+		// one batch per display, listeners without display are called by this thread
+		Map<Display, Batch> batches = new LinkedHashMap<Display, Batch>();
+		Batch directBatch = new Batch();
+		for (List<PFLock> fileEvents : events.values()) {
+			for (PFLock lock : fileEvents) {
+				Set<Registration> registrations = lockListenerMap.get(lock.getPropertiesFileID());
+				if (registrations != null) {
+					for (Registration registration : registrations)
+						addToBatch(batches, directBatch, registration, lock);
+				}
+				for (Registration registration : globalLockListeners)
+					addToBatch(batches, directBatch, registration, lock);
+			}
+		}
+
+		for (Map.Entry<Display, Batch> entry : batches.entrySet()) {
+			Display display = entry.getKey();
+			try {
+				if (! display.isDisposed())
+					display.asyncExec(entry.getValue());
+			} catch (SWTException e) {
+				// display has been disposed in the meantime, UI session is gone
+			}
+		}
+		directBatch.run();
+	}
+
+	/**
+	 * Returns true if both events belong to the same holder of the lock, i.e. the same user
+	 * in the same UI session.
+	 */
+	private static boolean isSameHolder(PFLock lock, PFLock otherLock) {
+		if (lock.getOwner() == null ? otherLock.getOwner() != null : ! lock.getOwner().equals(otherLock.getOwner()))
+			return false;
+		return lock.getSessionID() == null ? otherLock.getSessionID() == null
+				: lock.getSessionID().equals(otherLock.getSessionID());
+	}
+
+	private void addToBatch(Map<Display, Batch> batches, Batch directBatch,
+			Registration registration, PFLock lock) {
+		Batch batch = directBatch;
+		if (registration.display != null) {
+			batch = batches.get(registration.display);
+			if (batch == null) {
+				batch = new Batch();
+				batches.put(registration.display, batch);
+			}
+		}
+		batch.add(registration, lock);
+	}
+}
@@ -0,0 +1,200 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of a {@link RBLockManager} and its {@link LockEventBus}. The counters are updated
+ * without locking by the threads, which lock, release and dispatch. Can be registered as
+ * MXBean at the platform MBean server (e.g. to be read by JConsole).
+ */
+public class LockMetrics implements LockMetricsMXBean {
+	/** Object name of the metrics of {@link RBLockManager#INSTANCE} */
+	public static final String OBJECT_NAME = "org.eclipselabs.tapiji.translator.rap:type=RBLockManager";
+
+	private final RBLockManager manager;
+
+	private final AtomicLong acquiredLocks = new AtomicLong();
+	private final AtomicLong contendedAcquires = new AtomicLong();
+	private final AtomicLong failedAcquires = new AtomicLong();
+	private final AtomicLong releasedLocks = new AtomicLong();
+	private final AtomicLong expiredLeases = new AtomicLong();
+	private final AtomicLong postedEvents = new AtomicLong();
+	private final AtomicLong dispatchedEvents = new AtomicLong();
+	private final AtomicLong listenerCalls = new AtomicLong();
+
+	private final LatencyHistogram acquireLatency = new LatencyHistogram();
+	private final LatencyHistogram holdDuration = new LatencyHistogram();
+	private final LatencyHistogram dispatchTime = new LatencyHistogram();
+
+	LockMetrics(RBLockManager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Records a lock attempt.
+	 * @param acquired true if the lock has been acquired
+	 * @param contended true if another user held the lock during the attempt
+	 * @param nanos duration of the attempt
+	 */
+	void lockAttempted(boolean acquired, boolean contended, long nanos) {
+		if (contended)
+			contendedAcquires.incrementAndGet();
+		if (acquired) {
+			acquiredLocks.incrementAndGet();
+			acquireLatency.record(nanos);
+		} else {
+			failedAcquires.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records a released lock.
+	 * @param expired true if the lease has expired
+	 * @param heldNanos time the lock has been held
+	 */
+	void lockReleased(boolean expired, long heldNanos) {
+		releasedLocks.incrementAndGet();
+		if (expired)
+			expiredLeases.incrementAndGet();
+		holdDuration.record(heldNanos);
+	}
+
+	void eventPosted() {
+		postedEvents.incrementAndGet();
+	}
+
+	void eventsDispatched(int events) {
+		dispatchedEvents.addAndGet(events);
+	}
+
+	void batchDelivered(int calls, long nanos) {
+		listenerCalls.addAndGet(calls);
+		dispatchTime.record(nanos);
+	}
+
+	@Override
+	public long getAcquiredLocks() {
+		return acquiredLocks.get();
+	}
+
+	@Override
+	public long getContendedAcquires() {
+		return contendedAcquires.get();
+	}
+
+	@Override
+	public long getFailedAcquires() {
+		return failedAcquires.get();
+	}
+
+	@Override
+	public long getReleasedLocks() {
+		return releasedLocks.get();
+	}
+
+	@Override
+	public long getExpiredLeases() {
+		return expiredLeases.get();
+	}
+
+	@Override
+	public int getActiveLocks() {
+		return manager.countActiveLocks();
+	}
+
+	@Override
+	public Map<String, Integer> getActiveLocksPerSession() {
+		return manager.countActiveLocksPerSession();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getAcquireLatency() {
+		return acquireLatency.getSnapshot();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getHoldDuration() {
+		return holdDuration.getSnapshot();
+	}
+
+	@Override
+	public LatencyHistogram.Snapshot getDispatchTime() {
+		return dispatchTime.getSnapshot();
+	}
+
+	@Override
+	public long getPostedEvents() {
+		return postedEvents.get();
+	}
+
+	@Override
+	public long getDispatchedEvents() {
+		return dispatchedEvents.get();
+	}
+
+	@Override
+	public long getListenerCalls() {
+		return listenerCalls.get();
+	}
+
+	@Override
+	public void reset() {
+		acquiredLocks.set(0);
+		contendedAcquires.set(0);
+		failedAcquires.set(0);
+		releasedLocks.set(0);
+		expiredLeases.set(0);
+		postedEvents.set(0);
+		dispatchedEvents.set(0);
+		listenerCalls.set(0);
+		acquireLatency.reset();
+		holdDuration.reset();
+		dispatchTime.reset();
+	}
+
+	/**
+	 * Registers these metrics at the platform MBean server.
+	 * @param name object name, e.g. {@link #OBJECT_NAME}
+	 */
+	public void register(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(name);
+			if (! server.isRegistered(objectName))
+				server.registerMBean(this, objectName);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Unregisters metrics from the platform MBean server.
+	 * @param name object name, e.g. {@link #OBJECT_NAME}
+	 */
+	public static void unregister(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(name);
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "LockMetrics [acquired=" + getAcquiredLocks() + ", contended=" + getContendedAcquires()
+				+ ", failed=" + getFailedAcquires() + ", released=" + getReleasedLocks()
+				+ ", expired=" + getExpiredLeases() + ", active=" + getActiveLocks()
+				+ ", events=" + getPostedEvents() + "/" + getDispatchedEvents() + "/" + getListenerCalls()
+				+ ", acquireLatency=[" + getAcquireLatency() + "], holdDuration=[" + getHoldDuration()
+				+ "], dispatchTime=[" + getDispatchTime() + "]]";
+	}
+}
@@ -0,0 +1,52 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.util.Map;
+
+/**
+ * JMX interface of the lock metrics of the {@link RBLockManager}, registered under
+ * {@link LockMetrics#OBJECT_NAME}.
+ */
+public interface LockMetricsMXBean {
+
+	/** Number of acquired locks, a bundle lock counts once */
+	long getAcquiredLocks();
+
+	/** Number of lock attempts, which found the lock held by another user at least once */
+	long getContendedAcquires();
+
+	/** Number of lock attempts, which failed because another user held the lock */
+	long getFailedAcquires();
+
+	/** Number of released locks, including expired leases */
+	long getReleasedLocks();
+
+	/** Number of locks released by the reaper, because their leases expired */
+	long getExpiredLeases();
+
+	/** Number of currently locked properties files */
+	int getActiveLocks();
+
+	/** Number of currently locked properties files per UI session id */
+	Map<String, Integer> getActiveLocksPerSession();
+
+	/** Time from the first attempt until a lock has been acquired */
+	LatencyHistogram.Snapshot getAcquireLatency();
+
+	/** Time from acquiring until releasing a lock */
+	LatencyHistogram.Snapshot getHoldDuration();
+
+	/** Time to call the listeners of one batch of lock events */
+	LatencyHistogram.Snapshot getDispatchTime();
+
+	/** Number of lock events posted to the event bus */
+	long getPostedEvents();
+
+	/** Number of lock events delivered after coalescing */
+	long getDispatchedEvents();
+
+	/** Number of listener calls, i.e. the fan-out of the dispatched events */
+	long getListenerCalls();
+
+	/** Resets all counters and histograms */
+	void reset();
+}
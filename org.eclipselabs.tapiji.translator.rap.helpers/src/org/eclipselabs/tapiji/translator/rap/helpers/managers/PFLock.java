@@ -1,61 +1,218 @@
 package org.eclipselabs.tapiji.translator.rap.helpers.managers;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipselabs.tapiji.translator.rap.model.user.User;
 
+/**
+ * Lock of a properties file. The lock is acquired and released by compare-and-set of its
+ * lease, so it never blocks. After release, the owner is still the last holder of the lock.
+ *
+ * A lock is held for a limited time only. The lease is renewed by the holder's activity
+ * ({@link RBLockManager#renewLease(long, User)}), otherwise it expires and the lock is released
+ * by the reaper of the {@link RBLockManager}.
+ *
+ * A lock, which has been released for a long time, is retired by the reaper and removed from the
+ * lock manager. A retired lock can't be acquired anymore, the lock manager creates a new lock for
+ * the properties file instead.
+ */
 public class PFLock {
-	private long propsID;
-	private User owner;
-	private Semaphore sema = new Semaphore(1);
-	private boolean locked = false;
-	
-	public PFLock(long rbID, User owner) {
-		this.propsID = rbID;
+	/** Holder of the lock and the time, until the lock is held */
+	private static class Lease {
+		final User user;
+		/** System.nanoTime() of the acquisition */
+		final long acquired = System.nanoTime();
+		/** expiry in milliseconds since the epoch */
+		volatile long expiry;
+
+		Lease(User user, long expiry) {
+			this.user = user;
+			this.expiry = expiry;
+		}
+	}
+
+	/** lease of a retired lock, which can't be acquired anymore */
+	private static final Lease RETIRED = new Lease(null, 0);
+
+	private final long propsID;
+	/** summary of the resource bundle, which contains the properties file, null if unknown */
+	private final RBLock rbLock;
+	/** lease of the current holder, null if released, {@link #RETIRED} if retired */
+	private final AtomicReference<Lease> lease = new AtomicReference<Lease>();
+	/** current or last holder */
+	private volatile User owner;
+	/** id of the UI session, which holds the lock */
+	private volatile String sessionID;
+	/** time of the last release in milliseconds since the epoch */
+	private volatile long releasedMillis = System.currentTimeMillis();
+
+	public PFLock(long propsID, User owner) {
+		this(propsID, owner, null);
+	}
+
+	public PFLock(long propsID, User owner, RBLock rbLock) {
+		this.propsID = propsID;
 		this.owner = owner;
+		this.rbLock = rbLock;
 	}
 
 	public long getPropertiesFileID() {
 		return propsID;
 	}
 
-	public void setPropertiesFileID(long rbID) {
-		this.propsID = rbID;
+	/**
+	 * Returns the lock summary of the resource bundle, which contains the properties file.
+	 * If it exists, the lock is acquired and released through the summary.
+	 * @return summary of the bundle's locks or null
+	 */
+	public RBLock getRBLock() {
+		return rbLock;
 	}
 
 	public User getOwner() {
 		return owner;
 	}
 
-	public void setOwner(User owner) {
-		this.owner = owner;
+	public String getSessionID() {
+		return sessionID;
+	}
+
+	/**
+	 * Returns the time, when the lease of the current holder expires.
+	 * @return expiry in milliseconds since the epoch, or 0 if the lock is released
+	 */
+	public long getLeaseExpiry() {
+		Lease current = getLease();
+		return current != null ? current.expiry : 0;
+	}
+
+	/**
+	 * Returns the time, since the current holder holds the lock.
+	 * @return duration in nanoseconds, or 0 if the lock is released
+	 */
+	public long getHeldNanos() {
+		Lease current = getLease();
+		return current != null ? System.nanoTime() - current.acquired : 0;
 	}
 
 	public boolean isReleased() {
-		return !locked;
+		return getLease() == null;
 	}
-	
+
 	public boolean isLocked() {
-		return locked;
+		return getLease() != null;
 	}
 
-	public void release() {
-		if (locked == true) {
-			sema.release();
-			this.locked = false;
-		}
+	/**
+	 * Returns true if this lock or the summary of its resource bundle has been retired.
+	 * A retired lock can't be acquired, the lock manager must look up the current lock.
+	 * @return true if the lock is retired
+	 */
+	public boolean isRetired() {
+		return lease.get() == RETIRED || (rbLock != null && rbLock.isRetired());
 	}
-	
-	public void lock() throws InterruptedException {
-		sema.acquire();	
-		this.locked = true;
+
+	/** Returns the lease of the current holder, null if the lock is released or retired */
+	private Lease getLease() {
+		Lease current = lease.get();
+		return current != RETIRED ? current : null;
 	}
 
-//	public Semaphore getSemaphore() {
-//		return sema;
-//	}
-//
-//	public void setSemaphore(Semaphore sema) {
-//		this.sema = sema;
-//	}
+	/**
+	 * Returns true if the given user holds this lock.
+	 * @param user a user
+	 * @return true if the lock is locked by this user
+	 */
+	public boolean isHeldBy(User user) {
+		Lease current = getLease();
+		return current != null && current.user.equals(user);
+	}
+
+	/**
+	 * Acquires this lock, if it is released. Doesn't block.
+	 * @param user the new owner
+	 * @param sessionID id of the UI session of the new owner
+	 * @param leaseMillis time in milliseconds, until the lease expires
+	 * @return true if the lock has been acquired, false if it's locked (also by the same user)
+	 */
+	boolean tryAcquire(User user, String sessionID, long leaseMillis) {
+		if (! lease.compareAndSet(null, new Lease(user, System.currentTimeMillis() + leaseMillis)))
+			return false;
+		this.owner = user;
+		this.sessionID = sessionID;
+		return true;
+	}
+
+	/**
+	 * Extends the lease of the holder.
+	 * @param user the holder of the lock
+	 * @param leaseMillis time in milliseconds from now, until the lease expires
+	 * @return true if the user still holds the lock, false if it's released or held by another user
+	 */
+	boolean renewLease(User user, long leaseMillis) {
+		Lease current = getLease();
+		if (current == null || ! current.user.equals(user))
+			return false;
+		current.expiry = System.currentTimeMillis() + leaseMillis;
+		// the lease may have been expired, while it was renewed
+		return lease.get() == current;
+	}
+
+	/**
+	 * Releases this lock, if it is held by the given user.
+	 * @param user the owner of the lock
+	 * @return true if the lock has been released
+	 */
+	boolean release(User user) {
+		Lease current = getLease();
+		if (current == null || ! current.user.equals(user))
+			return false;
+		if (! lease.compareAndSet(current, null))
+			return false;
+		releasedMillis = System.currentTimeMillis();
+		return true;
+	}
+
+	/**
+	 * Releases this lock, if its lease has expired.
+	 * @param now current time in milliseconds since the epoch
+	 * @return the holder of the expired lease, or null if the lock hasn't been released
+	 */
+	User expire(long now) {
+		Lease current = getLease();
+		if (current == null || current.expiry > now)
+			return null;
+		if (! lease.compareAndSet(current, null))
+			return null;
+		releasedMillis = now;
+		return current.user;
+	}
+
+	/**
+	 * Retires this lock, if it has been released since the given time.
+	 * @param idleSince time in milliseconds since the epoch
+	 * @return true if the lock has been retired
+	 */
+	boolean retire(long idleSince) {
+		return lease.get() == null && releasedMillis <= idleSince && lease.compareAndSet(null, RETIRED);
+	}
+
+	/**
+	 * Returns a copy of this lock, which isn't changed by later acquires and releases.
+	 * @param locked true if the copy is locked by the owner, false if it's released
+	 * @return the copy
+	 */
+	PFLock snapshot(boolean locked) {
+		PFLock copy = new PFLock(propsID, owner, rbLock);
+		copy.sessionID = sessionID;
+		if (locked)
+			copy.lease.set(new Lease(copy.owner, getLeaseExpiry()));
+		return copy;
+	}
+
+	@Override
+	public String toString() {
+		return "PFLock [propsID=" + propsID + ", owner=" + (owner != null ? owner.getUsername() : null)
+				+ ", locked=" + isLocked() + "]";
+	}
 }
@@ -0,0 +1,113 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Changes of the keys of a properties file (= one locale of a resource bundle) by one save.
+ * Immutable. Deltas are published by {@link PropertiesFileDeltaLog} and numbered consecutively
+ * per properties file, so a receiver recognizes, if it has missed a delta.
+ */
+public class PropertiesFileDelta {
+	private final long propsID;
+	private final long version;
+	private final Map<String, String> addedKeys;
+	private final Map<String, String> changedKeys;
+	private final Set<String> removedKeys;
+
+	PropertiesFileDelta(long propsID, long version, Map<String, String> addedKeys,
+			Map<String, String> changedKeys, Set<String> removedKeys) {
+		this.propsID = propsID;
+		this.version = version;
+		this.addedKeys = Collections.unmodifiableMap(addedKeys);
+		this.changedKeys = Collections.unmodifiableMap(changedKeys);
+		this.removedKeys = Collections.unmodifiableSet(removedKeys);
+	}
+
+	/**
+	 * Computes the changed keys between two contents of a properties file.
+	 * @param propsID id of the properties file
+	 * @param version number of the delta
+	 * @param oldContent content before the save
+	 * @param newContent content after the save
+	 * @return the delta
+	 */
+	static PropertiesFileDelta compute(long propsID, long version, String oldContent, String newContent) {
+		Properties oldProperties = load(oldContent);
+		Properties newProperties = load(newContent);
+
+		Map<String, String> addedKeys = new HashMap<String, String>();
+		Map<String, String> changedKeys = new HashMap<String, String>();
+		Set<String> removedKeys = new HashSet<String>();
+		for (String key : newProperties.stringPropertyNames()) {
+			String newValue = newProperties.getProperty(key);
+			String oldValue = oldProperties.getProperty(key);
+			if (oldValue == null)
+				addedKeys.put(key, newValue);
+			else if (! oldValue.equals(newValue))
+				changedKeys.put(key, newValue);
+		}
+		for (String key : oldProperties.stringPropertyNames()) {
+			if (newProperties.getProperty(key) == null)
+				removedKeys.add(key);
+		}
+		return new PropertiesFileDelta(propsID, version, addedKeys, changedKeys, removedKeys);
+	}
+
+	private static Properties load(String content) {
+		Properties properties = new Properties();
+		try {
+			properties.load(new StringReader(content));
+		} catch (IOException e) {
+			// can't happen with a string reader
+			e.printStackTrace();
+		}
+		return properties;
+	}
+
+	public long getPropertiesFileID() {
+		return propsID;
+	}
+
+	/**
+	 * Returns the number of this delta. The first delta of a properties file has the number 1.
+	 * @return the version of the properties file after this delta
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return new keys (as key) and their values (as value)
+	 */
+	public Map<String, String> getAddedKeys() {
+		return addedKeys;
+	}
+
+	/**
+	 * @return keys with a changed value (as key) and their new values (as value)
+	 */
+	public Map<String, String> getChangedKeys() {
+		return changedKeys;
+	}
+
+	public Set<String> getRemovedKeys() {
+		return removedKeys;
+	}
+
+	public boolean isEmpty() {
+		return addedKeys.isEmpty() && changedKeys.isEmpty() && removedKeys.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "PropertiesFileDelta [propsID=" + propsID + ", version=" + version + ", added="
+				+ addedKeys.keySet() + ", changed=" + changedKeys.keySet() + ", removed=" + removedKeys + "]";
+	}
+}
@@ -0,0 +1,65 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest changes of the stored properties files. The session, which saves a properties file,
+ * publishes the changed keys before it releases the lock of the file. The sessions, which
+ * share the file, apply the latest delta when they are informed about the released lock,
+ * instead of reading the whole file again.
+ *
+ * Only the latest delta of a file is kept. A session, which has missed a delta (the version
+ * of the latest delta isn't the next version of the session), has to reload the whole file.
+ */
+public class PropertiesFileDeltaLog {
+
+	public static final PropertiesFileDeltaLog INSTANCE = new PropertiesFileDeltaLog();
+
+	/** properties file id (as key) -> latest delta (as value) */
+	private final Map<Long, PropertiesFileDelta> latestDeltas = new ConcurrentHashMap<Long, PropertiesFileDelta>();
+
+	private PropertiesFileDeltaLog() {
+	}
+
+	/**
+	 * Publishes the changes of a saved properties file.
+	 * @param propsID id of the properties file
+	 * @param oldContent content before the save
+	 * @param newContent saved content
+	 * @return the published delta
+	 */
+	public synchronized PropertiesFileDelta publish(long propsID, String oldContent, String newContent) {
+		PropertiesFileDelta delta = PropertiesFileDelta.compute(propsID, getVersion(propsID) + 1,
+				oldContent, newContent);
+		latestDeltas.put(propsID, delta);
+		return delta;
+	}
+
+	/**
+	 * Returns the latest delta of a properties file.
+	 * @param propsID id of the properties file
+	 * @return the latest delta or null, if no changes have been published
+	 */
+	public PropertiesFileDelta getLatest(long propsID) {
+		return latestDeltas.get(propsID);
+	}
+
+	/**
+	 * Returns the version of a properties file, i.e. the number of its latest delta.
+	 * @param propsID id of the properties file
+	 * @return the version or 0, if no changes have been published
+	 */
+	public long getVersion(long propsID) {
+		PropertiesFileDelta delta = latestDeltas.get(propsID);
+		return delta != null ? delta.getVersion() : 0;
+	}
+
+	/**
+	 * Removes the delta of a deleted properties file.
+	 * @param propsID id of the properties file
+	 */
+	public void remove(long propsID) {
+		latestDeltas.remove(propsID);
+	}
+}
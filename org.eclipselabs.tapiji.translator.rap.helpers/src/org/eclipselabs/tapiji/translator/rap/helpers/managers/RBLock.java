@@ -0,0 +1,183 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipselabs.tapiji.translator.rap.model.user.User;
+
+/**
+ * Lock summary of a resource bundle. The locks of the bundle's properties files ({@link PFLock})
+ * are acquired and released through this summary, which counts the locked files and the files
+ * held by every user. So bundle wide checks don't need to visit the files of the bundle.
+ *
+ * Every change of a file lock and the update of the counters happen in one step
+ * (monitor of the summary), therefore the counters always match the file locks and
+ * {@link #acquireAll(Collection, User, String, long)} locks either all files or none.
+ *
+ * Holders are counted by username, because a user is loaded by every session on its own
+ * and the user objects of different sessions are equal, but have different hash codes.
+ *
+ * A summary without locked files and file locks is retired by the reaper of the {@link RBLockManager}.
+ * Files can't be locked through a retired summary, the lock manager creates a new one instead.
+ */
+public class RBLock {
+	private final long rbID;
+	/** number of locked properties files */
+	private int lockedFiles;
+	/** username of the holder (as key) -> number of properties files locked by the holder (as value) */
+	private final Map<String, Integer> filesPerHolder = new HashMap<String, Integer>(4);
+	private boolean retired = false;
+
+	public RBLock(long rbID) {
+		this.rbID = rbID;
+	}
+
+	public long getResourceBundleID() {
+		return rbID;
+	}
+
+	/**
+	 * Returns the number of locked properties files of the resource bundle.
+	 * @return number of locked files
+	 */
+	public synchronized int getLockedFiles() {
+		return lockedFiles;
+	}
+
+	/**
+	 * Returns true if at least one properties file of the resource bundle is locked.
+	 * @return true if the resource bundle is (partially) locked
+	 */
+	public synchronized boolean isLocked() {
+		return lockedFiles > 0;
+	}
+
+	/**
+	 * Returns true if no properties file is locked by another user than the given one.
+	 * @param user a user
+	 * @return true if all locked files (if any) are held by the user
+	 */
+	public synchronized boolean isHeldOnlyBy(User user) {
+		return lockedFiles == getFilesHeldBy(user);
+	}
+
+	/**
+	 * Returns the number of properties files of the resource bundle held by a user.
+	 * @param user a user
+	 * @return number of files locked by the user
+	 */
+	public synchronized int getFilesHeldBy(User user) {
+		if (user == null)
+			return 0;
+		Integer files = filesPerHolder.get(user.getUsername());
+		return files != null ? files : 0;
+	}
+
+	public synchronized boolean isRetired() {
+		return retired;
+	}
+
+	/**
+	 * Retires this summary, if no properties file is locked.
+	 * @return true if the summary has been retired
+	 */
+	synchronized boolean retire() {
+		if (lockedFiles == 0)
+			retired = true;
+		return retired;
+	}
+
+	/**
+	 * Acquires the lock of a properties file of this resource bundle, if it is released.
+	 * @return true if the lock has been acquired, false if it's locked or the summary is retired
+	 */
+	synchronized boolean acquire(PFLock lock, User user, String sessionID, long leaseMillis) {
+		if (retired || ! lock.tryAcquire(user, sessionID, leaseMillis))
+			return false;
+		addHolder(user, 1);
+		return true;
+	}
+
+	/**
+	 * Acquires the locks of several properties files of this resource bundle at once. Either all
+	 * locks are held by the user afterwards or none has been acquired, because another user holds one.
+	 * Locks, which belong to the summary of another resource bundle, are rejected, because they
+	 * couldn't be counted by their own summary. Locks without a summary are acquired, but not counted.
+	 * @param locks locks of the properties files
+	 * @param user the new owner
+	 * @param sessionID id of the UI session of the new owner
+	 * @param leaseMillis time in milliseconds, until the leases expire
+	 * @return the newly acquired locks (without those already held by the user), or null if
+	 * another user holds one of the locks, a lock is retired or belongs to another summary
+	 */
+	synchronized List<PFLock> acquireAll(Collection<PFLock> locks, User user, String sessionID, long leaseMillis) {
+		if (retired)
+			return null;
+		for (PFLock lock : locks) {
+			if (lock.getRBLock() != null && lock.getRBLock() != this)
+				return null;
+			if (lock.isLocked() && ! lock.isHeldBy(user))
+				return null;
+		}
+
+		List<PFLock> acquired = new ArrayList<PFLock>(locks.size());
+		int counted = 0;
+		for (PFLock lock : locks) {
+			if (lock.renewLease(user, leaseMillis))
+				continue;
+			// locks of this bundle can't be acquired by others, while the monitor is held
+			if (! lock.tryAcquire(user, sessionID, leaseMillis)) {
+				// lock without a summary has been acquired in the meantime
+				for (PFLock acquiredLock : acquired)
+					acquiredLock.release(user);
+				return null;
+			}
+			acquired.add(lock);
+			if (lock.getRBLock() == this)
+				counted++;
+		}
+		addHolder(user, counted);
+		return acquired;
+	}
+
+	/**
+	 * Releases the lock of a properties file of this resource bundle, if it is held by the user.
+	 * @return true if the lock has been released
+	 */
+	synchronized boolean release(PFLock lock, User user) {
+		if (! lock.release(user))
+			return false;
+		addHolder(user, -1);
+		return true;
+	}
+
+	/**
+	 * Releases the lock of a properties file of this resource bundle, if its lease has expired.
+	 * @return the holder of the expired lease, or null if the lock hasn't been released
+	 */
+	synchronized User expire(PFLock lock, long now) {
+		User holder = lock.expire(now);
+		if (holder != null)
+			addHolder(holder, -1);
+		return holder;
+	}
+
+	private void addHolder(User user, int files) {
+		if (files == 0)
+			return;
+		int held = getFilesHeldBy(user) + files;
+		if (held > 0)
+			filesPerHolder.put(user.getUsername(), held);
+		else
+			filesPerHolder.remove(user.getUsername());
+		lockedFiles += files;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RBLock [rbID=" + rbID + ", lockedFiles=" + lockedFiles + ", holders=" + filesPerHolder.size() + "]";
+	}
+}
@@ -1,207 +1,538 @@
 package org.eclipselabs.tapiji.translator.rap.helpers.managers;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import org.eclipse.rap.rwt.RWT;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
 import org.eclipselabs.tapiji.translator.rap.model.user.User;
 
+/**
+ * Manages the locks of properties files, which are shared by all sessions. Every properties file
+ * has its own lock ({@link PFLock}), which is acquired by compare-and-set. Locking never blocks
+ * indefinitely: {@link #tryLock(long)} returns immediately and
+ * {@link #tryLock(long, User, long, TimeUnit)} waits at most the given time.
+ * The locks of a resource bundle's files are summarized by a {@link RBLock}, which allows to lock
+ * all files of a bundle in one step ({@link #lock(ResourceBundle, User)}) and answers bundle wide
+ * checks like {@link #isRBLocked(ResourceBundle)} without visiting the files.
+ * Locks are leases ({@link #LEASE_PROPERTY}), which are renewed by {@link #renewLease(long)}.
+ * A single reaper thread releases the locks of expired leases, e.g. of crashed browser tabs, and
+ * removes locks and summaries, which have been released for longer than a lease, so the number of
+ * locks is bounded by the recently edited files.
+ * Listeners are notified asynchronously by the {@link LockEventBus}, which coalesces the events of
+ * a properties file and delivers them in one batch per UI session.
+ */
 public class RBLockManager {
+	/** Number of concurrently updatable segments of the lock and listener maps */
+	private static final int CONCURRENCY_LEVEL = 64;
+	/** Minimum and maximum time to wait between two attempts of a timed lock */
+	private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	/** System property with the lease time of a lock in seconds */
+	public static final String LEASE_PROPERTY = "tapiji.lock.lease";
+	/** Default lease time of a lock in seconds */
+	public static final int DEFAULT_LEASE_SECONDS = 600;
+	/** Maximum time in milliseconds between two runs of the reaper */
+	private static final long MAX_REAPER_INTERVAL_MILLIS = 30000;
+
+	private final ConcurrentMap<Long, PFLock> pfLockMap =
+			new ConcurrentHashMap<Long, PFLock>(256, 0.75f, CONCURRENCY_LEVEL);
+	/** UI session id (as key) -> locks held by the session (as value) */
+	private final ConcurrentMap<String, Set<PFLock>> sessionLockMap =
+			new ConcurrentHashMap<String, Set<PFLock>>(16, 0.75f, CONCURRENCY_LEVEL);
+
+	/** resource bundle id (as key) -> lock summary of the bundle (as value) */
+	private final ConcurrentMap<Long, RBLock> rbLockMap =
+			new ConcurrentHashMap<Long, RBLock>(64, 0.75f, CONCURRENCY_LEVEL);
+
+	private final LockMetrics metrics = new LockMetrics(this);
+	private final LockEventBus eventBus = new LockEventBus(metrics);
+
+	/** time in milliseconds, until an unrenewed lease expires */
+	private final long leaseMillis;
+	private final AtomicBoolean reaperStarted = new AtomicBoolean();
 
-	private static Map<Long, PFLock> pfLockMap = new ConcurrentHashMap<Long, PFLock>();
-	private static Map<String, List<PFLock>> sessionLockMap = new ConcurrentHashMap<String, List<PFLock>>();
-	
-	private static Map<Long, Set<IPropertiesFileLockListener>> lockListenerMap = 
-			new HashMap<Long, Set<IPropertiesFileLockListener>>();
-	
-	private static List<IPropertiesFileLockListener> globalLockListeners = 
-			new ArrayList<IPropertiesFileLockListener>();
-	
 	public static final RBLockManager INSTANCE = new RBLockManager();
-		
+
 	public RBLockManager() {
-		
+		this(TimeUnit.SECONDS.toMillis(Integer.getInteger(LEASE_PROPERTY, DEFAULT_LEASE_SECONDS)));
+	}
+
+	/**
+	 * Creates a lock manager.
+	 * @param leaseMillis time in milliseconds, until a lock is released if its lease isn't renewed
+	 */
+	public RBLockManager(long leaseMillis) {
+		this.leaseMillis = leaseMillis;
+	}
+
+	public long getLeaseMillis() {
+		return leaseMillis;
+	}
+
+	/**
+	 * Returns the metrics of this lock manager, e.g. to register them at the platform MBean server.
+	 * @return the metrics
+	 */
+	public LockMetrics getMetrics() {
+		return metrics;
 	}
-	
-	public synchronized PFLock getPFLock(long propsID) {
+
+	public PFLock getPFLock(long propsID) {
 		return pfLockMap.get(propsID);
 	}
-	
+
+	/**
+	 * Returns the lock summary of a resource bundle.
+	 * @param rbID id of the resource bundle
+	 * @return the summary or null, if no properties file of the bundle has been locked yet
+	 */
+	public RBLock getRBLock(long rbID) {
+		return rbLockMap.get(rbID);
+	}
+
 	public boolean isRBLockedCompletely(ResourceBundle rb) {
-		for (PropertiesFile pf : rb.getPropertiesFiles()) {
-			if (! isPFLocked(pf.getId()))
-				return false;
-		}
-		return true;
+		RBLock rbLock = rbLockMap.get(rb.getId());
+		return rbLock != null && rbLock.getLockedFiles() >= rb.getPropertiesFiles().size();
 	}
-	
+
 	public boolean isRBLocked(ResourceBundle rb) {
-		for (PropertiesFile pf : rb.getPropertiesFiles()) {
-			if (isPFLocked(pf.getId()))
-				return true;
-		}		
-		return false;
+		RBLock rbLock = rbLockMap.get(rb.getId());
+		return rbLock != null && rbLock.isLocked();
 	}
-	
+
 	public boolean isOwnerOfRBLock(User user, ResourceBundle rb) {
-		for (PropertiesFile pf : rb.getPropertiesFiles()) {
-			PFLock lock = getPFLock(pf.getId());
-			if (lock != null && lock.isLocked() && ! user.equals(lock.getOwner()))
-				return false;
+		RBLock rbLock = rbLockMap.get(rb.getId());
+		return rbLock == null || rbLock.isHeldOnlyBy(user);
+	}
+
+	/**
+	 * Locks all properties files of a resource bundle for the logged in user. Doesn't block.
+	 * @param rb the resource bundle
+	 * @return true if the user holds the locks of all files, false if another user holds one of them
+	 */
+	public boolean lock(ResourceBundle rb) {
+		return lock(rb, UserUtils.getUser());
+	}
+
+	/**
+	 * Locks all properties files of a resource bundle for a user of the current UI session in one step.
+	 * If another user holds the lock of one file, no lock is acquired. Doesn't block.
+	 * @param rb the resource bundle
+	 * @param currentUser the new owner
+	 * @return true if the user holds the locks of all files, false if another user holds one of them
+	 */
+	public boolean lock(ResourceBundle rb, User currentUser) {
+		String sessionID = RWT.getUISession().getId();
+		long start = System.nanoTime();
+		List<PFLock> acquired;
+		while (true) {
+			RBLock rbLock = getOrCreateRBLock(rb.getId());
+			List<PFLock> locks = new ArrayList<PFLock>(rb.getPropertiesFiles().size());
+			for (PropertiesFile pf : rb.getPropertiesFiles())
+				locks.add(getOrCreatePFLock(pf.getId(), currentUser, rbLock));
+
+			acquired = rbLock.acquireAll(locks, currentUser, sessionID, leaseMillis);
+			// retry with the new locks, if the reaper has retired one of them in the meantime
+			if (acquired != null || ! isRetired(rbLock, locks))
+				break;
+		}
+		if (acquired == null) {
+			metrics.lockAttempted(false, true, System.nanoTime() - start);
+			return false;
+		}
+		// no new lock, if all files are held by the user already
+		if (! acquired.isEmpty())
+			metrics.lockAttempted(true, false, System.nanoTime() - start);
+
+		startReaper();
+		for (PFLock lock : acquired) {
+			addSessionLock(lock, sessionID);
+			firePFLockAcquired(lock);
 		}
 		return true;
 	}
-	
+
+	/**
+	 * Releases the locks of all properties files of a resource bundle, which are held by a user.
+	 * @param user the owner of the locks
+	 * @param rb the resource bundle
+	 */
+	public void release(ResourceBundle rb, User user) {
+		for (PropertiesFile pf : rb.getPropertiesFiles())
+			release(pf.getId(), user);
+	}
+
 	public void releaseLocksHeldByUser(User user, ResourceBundle rb) {
-		for (PropertiesFile pf : rb.getPropertiesFiles()) {							
-			PFLock lock = getPFLock(pf.getId());
-			// is properties file locked by this user --> release lock
-			if (lock != null && lock.isLocked() &&
-					lock.getOwner().equals(user)) {
-				release(pf.getId());
-			}
-		}
+		release(rb, user);
 	}
-	
+
 	public void releaseLocksHeldBySessionID(String sessionID) {
-		List<PFLock> locks = sessionLockMap.get(sessionID);		
-		if (locks != null) {			
+		Set<PFLock> locks = sessionLockMap.remove(sessionID);
+		if (locks != null) {
 			for (PFLock lock : locks) {
-				lock.release();
-				firePFLockReleased(lock);
+				// lock could have been released and acquired by another session in the meantime
+				if (sessionID.equals(lock.getSessionID()) && release(lock, lock.getOwner()))
+					firePFLockReleased(lock);
 			}
-			sessionLockMap.remove(sessionID);
 		}
 	}
-	
-	
-	public synchronized boolean isPFLocked(long propsID) {
+
+	public boolean isPFLocked(long propsID) {
 		PFLock lock = pfLockMap.get(propsID);
-		if (lock != null && lock.isLocked())			
+		return lock != null && lock.isLocked();
+	}
+
+	/**
+	 * Locks a properties file for the logged in user, if it isn't locked. Doesn't block.
+	 * @param propsID id of the properties file
+	 * @return true if the user holds the lock
+	 */
+	public boolean lock(long propsID) {
+		return lock(propsID, UserUtils.getUser());
+	}
+
+	/**
+	 * Locks a properties file for a user of the current UI session, if it isn't locked. Doesn't block.
+	 * @param propsID id of the properties file
+	 * @param currentUser the new owner
+	 * @return true if the user holds the lock
+	 */
+	public boolean lock(long propsID, User currentUser) {
+		return tryLock(propsID, currentUser, 0, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Locks a properties file for a user of the current UI session. Waits at most the given time,
+	 * if the properties file is locked by another user.
+	 * @param propsID id of the properties file
+	 * @param currentUser the new owner
+	 * @param timeout maximum time to wait
+	 * @param unit unit of the timeout
+	 * @return true if the user holds the lock, false if the timeout elapsed or the thread has been interrupted
+	 */
+	public boolean tryLock(long propsID, User currentUser, long timeout, TimeUnit unit) {
+		PFLock lock = getOrCreatePFLock(propsID, currentUser, null);
+		// only lock RB if it isn't locked already by same user, otherwise extend the lease
+		if (lock.renewLease(currentUser, leaseMillis))
 			return true;
+
+		String sessionID = RWT.getUISession().getId();
+		long start = System.nanoTime();
+		long deadline = start + unit.toNanos(timeout);
+		long backoff = MIN_BACKOFF_NANOS;
+		boolean contended = false;
+		while (! acquire(lock, currentUser, sessionID)) {
+			if (lock.renewLease(currentUser, leaseMillis))
+				return true;
+			// the reaper has retired the lock in the meantime, retry with the new lock
+			if (lock.isRetired()) {
+				lock = getOrCreatePFLock(propsID, currentUser, null);
+				continue;
+			}
+			contended = true;
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+				metrics.lockAttempted(false, true, System.nanoTime() - start);
+				return false;
+			}
+			LockSupport.parkNanos(Math.min(backoff, remaining));
+			backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+		}
+		metrics.lockAttempted(true, contended, System.nanoTime() - start);
+
+		startReaper();
+		addSessionLock(lock, sessionID);
+		firePFLockAcquired(lock);
+		return true;
+	}
+
+	/**
+	 * Extends the lease of a properties file lock held by the logged in user.
+	 * Should be called on activity of the user, which changes the properties file.
+	 * @param propsID id of the properties file
+	 * @return true if the user still holds the lock, false if it's released (e.g. expired)
+	 */
+	public boolean renewLease(long propsID) {
+		return renewLease(propsID, UserUtils.getUser());
+	}
+
+	/**
+	 * Extends the lease of a properties file lock held by a user.
+	 * @param propsID id of the properties file
+	 * @param user the holder of the lock
+	 * @return true if the user still holds the lock, false if it's released (e.g. expired)
+	 */
+	public boolean renewLease(long propsID, User user) {
+		PFLock lock = pfLockMap.get(propsID);
+		return lock != null && lock.renewLease(user, leaseMillis);
+	}
+
+	/**
+	 * Releases all locks, whose leases have expired, and fires their release events.
+	 * Is called periodically by the reaper.
+	 * @return number of released locks
+	 */
+	public int expireLeases() {
+		long now = System.currentTimeMillis();
+		int expired = 0;
+		for (PFLock lock : pfLockMap.values()) {
+			if (! lock.isLocked() || lock.getLeaseExpiry() > now)
+				continue;
+			String sessionID = lock.getSessionID();
+			long heldNanos = lock.getHeldNanos();
+			RBLock rbLock = lock.getRBLock();
+			User holder = rbLock != null ? rbLock.expire(lock, now) : lock.expire(now);
+			if (holder != null) {
+				metrics.lockReleased(true, heldNanos);
+				removeSessionLock(lock, sessionID);
+				firePFLockReleased(lock);
+				expired++;
+			}
+		}
+		removeIdleLocks(now - leaseMillis);
+		return expired;
+	}
+
+	/**
+	 * Retires and removes the locks, which have been released since the given time, and the
+	 * summaries of resource bundles without locks.
+	 * @param idleSince time in milliseconds since the epoch
+	 */
+	private void removeIdleLocks(long idleSince) {
+		Set<RBLock> usedRBLocks = Collections.newSetFromMap(new IdentityHashMap<RBLock, Boolean>());
+		for (PFLock lock : pfLockMap.values()) {
+			if (lock.retire(idleSince))
+				pfLockMap.remove(lock.getPropertiesFileID(), lock);
+			else if (lock.getRBLock() != null)
+				usedRBLocks.add(lock.getRBLock());
+		}
+		for (RBLock rbLock : rbLockMap.values()) {
+			if (! usedRBLocks.contains(rbLock) && rbLock.retire())
+				rbLockMap.remove(rbLock.getResourceBundleID(), rbLock);
+		}
+	}
+
+	private static boolean isRetired(RBLock rbLock, List<PFLock> locks) {
+		if (rbLock.isRetired())
+			return true;
+		for (PFLock lock : locks) {
+			if (lock.isRetired())
+				return true;
+		}
 		return false;
 	}
-	
-	public void lock(long propsID) {
-		lock(propsID, UserUtils.getUser());
+
+	// the reaper is started by the first acquired lock
+	private void startReaper() {
+		if (! reaperStarted.compareAndSet(false, true))
+			return;
+		ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TapiJI lock reaper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long interval = Math.max(100, Math.min(leaseMillis / 4, MAX_REAPER_INTERVAL_MILLIS));
+		reaper.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					expireLeases();
+				} catch (RuntimeException e) {
+					// an exception would cancel further runs
+					e.printStackTrace();
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
 	}
-	
-	public void lock(long propsID, User currentUser) {
+
+	/**
+	 * Locks a properties file for the logged in user, if it isn't locked. Doesn't block.
+	 * @param propsID id of the properties file
+	 * @return the owner of the lock, which is the logged in user if the lock has been acquired
+	 */
+	public User tryLock(long propsID) {
+		lock(propsID);
+		return pfLockMap.get(propsID).getOwner();
+	}
+
+	/**
+	 * Returns the lock of a properties file, creates it if it doesn't exist.
+	 * @param rbLock summary of the file's resource bundle, looked up if null
+	 */
+	private PFLock getOrCreatePFLock(long propsID, User owner, RBLock rbLock) {
 		PFLock lock = pfLockMap.get(propsID);
+		// replace a lock, which has been retired by the reaper
+		if (lock != null && lock.isRetired()) {
+			pfLockMap.remove(propsID, lock);
+			lock = null;
+		}
 		// lazy init
-		if (lock == null) {
-			lock = new PFLock(propsID, currentUser);
-			pfLockMap.put(propsID, lock);
+		while (lock == null) {
+			if (rbLock == null) {
+				PropertiesFile pf = DBUtils.getPropertiesFile(propsID);
+				if (pf != null && pf.getResourceBundle() != null)
+					rbLock = getOrCreateRBLock(pf.getResourceBundle().getId());
+			}
+			PFLock newLock = new PFLock(propsID, owner, rbLock);
+			lock = pfLockMap.putIfAbsent(propsID, newLock);
+			if (lock == null) {
+				lock = newLock;
+			} else if (lock.isRetired()) {
+				pfLockMap.remove(propsID, lock);
+				lock = null;
+			}
 		}
-		// only lock RB if it isn't locked already by same user	
-		if (lock.isLocked() && lock.getOwner().equals(currentUser))
-			return;
-		try {
-			lock.lock();
-			lock.setOwner(currentUser);
-			addSessionLock(lock);
-			firePFLockAcquired(lock);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}		
-	}
-	
-	private void addSessionLock(PFLock lock) {
-		String sessionId = RWT.getUISession().getId();
-		List<PFLock> locks = sessionLockMap.get(sessionId);
-		if (locks == null) {
-			locks = new ArrayList<PFLock>();
-			sessionLockMap.put(sessionId, locks);
+		return lock;
+	}
+
+	private RBLock getOrCreateRBLock(long rbID) {
+		RBLock rbLock = rbLockMap.get(rbID);
+		// replace a summary, which has been retired by the reaper
+		if (rbLock != null && rbLock.isRetired()) {
+			rbLockMap.remove(rbID, rbLock);
+			rbLock = null;
 		}
-		locks.add(lock);
+		while (rbLock == null) {
+			RBLock newRBLock = new RBLock(rbID);
+			rbLock = rbLockMap.putIfAbsent(rbID, newRBLock);
+			if (rbLock == null) {
+				rbLock = newRBLock;
+			} else if (rbLock.isRetired()) {
+				rbLockMap.remove(rbID, rbLock);
+				rbLock = null;
+			}
+		}
+		return rbLock;
 	}
-	
-	private void removeSessionLock(PFLock lock) {
-		String sessionId = RWT.getUISession().getId();
-		List<PFLock> locks = sessionLockMap.get(sessionId);
-		if (locks != null) {
-			locks.remove(lock);
-			if (locks.isEmpty())
-				sessionLockMap.remove(sessionId);
+
+	// file locks of a resource bundle change only together with the bundle's summary
+	private boolean acquire(PFLock lock, User user, String sessionID) {
+		RBLock rbLock = lock.getRBLock();
+		return rbLock != null ? rbLock.acquire(lock, user, sessionID, leaseMillis)
+				: lock.tryAcquire(user, sessionID, leaseMillis);
+	}
+
+	private boolean release(PFLock lock, User user) {
+		long heldNanos = lock.getHeldNanos();
+		RBLock rbLock = lock.getRBLock();
+		boolean released = rbLock != null ? rbLock.release(lock, user) : lock.release(user);
+		if (released)
+			metrics.lockReleased(false, heldNanos);
+		return released;
+	}
+
+	int countActiveLocks() {
+		int active = 0;
+		for (PFLock lock : pfLockMap.values()) {
+			if (lock.isLocked())
+				active++;
 		}
+		return active;
 	}
-	
-	public synchronized User tryLock(long propsID) {
-		PFLock lock = pfLockMap.get(propsID);
-		if (lock == null || lock.isReleased()) {
-			lock(propsID);
-			lock = pfLockMap.get(propsID);
+
+	Map<String, Integer> countActiveLocksPerSession() {
+		Map<String, Integer> activeLocks = new TreeMap<String, Integer>();
+		for (Map.Entry<String, Set<PFLock>> entry : sessionLockMap.entrySet()) {
+			if (! entry.getValue().isEmpty())
+				activeLocks.put(entry.getKey(), entry.getValue().size());
 		}
-		return lock.getOwner();
+		return activeLocks;
+	}
+
+	private void addSessionLock(PFLock lock, String sessionID) {
+		Set<PFLock> locks = sessionLockMap.get(sessionID);
+		if (locks == null) {
+			Set<PFLock> newLocks = Collections.newSetFromMap(new ConcurrentHashMap<PFLock, Boolean>());
+			locks = sessionLockMap.putIfAbsent(sessionID, newLocks);
+			if (locks == null)
+				locks = newLocks;
+		}
+		locks.add(lock);
+	}
+
+	private void removeSessionLock(PFLock lock, String sessionID) {
+		if (sessionID == null)
+			return;
+		Set<PFLock> locks = sessionLockMap.get(sessionID);
+		if (locks != null)
+			locks.remove(lock);
 	}
-	
-	public synchronized void release(long propsID) {
+
+	public void release(long propsID) {
 		release(propsID, UserUtils.getUser());
 	}
-	
-	public synchronized void release(long propsID, User currentUser) {
+
+	public void release(long propsID, User currentUser) {
 		PFLock lock = pfLockMap.get(propsID);
+		if (lock == null)
+			return;
+		String sessionID = lock.getSessionID();
 		// only owner can release lock
-		if (lock != null && lock.getOwner().equals(currentUser)) {
-			lock.release();
-			removeSessionLock(lock);
+		if (release(lock, currentUser)) {
+			removeSessionLock(lock, sessionID);
 			firePFLockReleased(lock);
 		}
 	}
-	
+
+	/**
+	 * Adds a listener for the lock of a properties file. If it's added from a UI thread, it's called
+	 * in the UI thread of the same display.
+	 */
 	public void addPFLockListener(long propsID, IPropertiesFileLockListener listener) {
-		Set<IPropertiesFileLockListener> list = lockListenerMap.get(propsID);
-		if (list == null) {
-			list = new HashSet<IPropertiesFileLockListener>();
-			lockListenerMap.put(propsID, list);
-		}
-		list.add(listener);
+		eventBus.addListener(propsID, listener);
 	}
-	
+
 	public void removePFLockListener(long propsID, IPropertiesFileLockListener listener) {
-		Set<IPropertiesFileLockListener> list = lockListenerMap.get(propsID);
-		if (list != null) {
-			list.remove(listener);
-		}
+		eventBus.removeListener(propsID, listener);
 	}
-	
+
+	/**
+	 * Adds a listener for the locks of all properties files. If it's added from a UI thread, it's called
+	 * in the UI thread of the same display.
+	 */
 	public void addGlobalLockListener(IPropertiesFileLockListener listener) {
-		globalLockListeners.add(listener);
+		eventBus.addGlobalListener(listener);
 	}
-	
+
 	public void removeGlobalLockListener(IPropertiesFileLockListener listener) {
-		globalLockListeners.remove(listener);
-	}
-	
-	public synchronized void firePFLockAcquired(PFLock lock) {
-		Set<IPropertiesFileLockListener> listeners = lockListenerMap.get(lock.getPropertiesFileID());
-		if (listeners != null) {
-			for (IPropertiesFileLockListener listener : listeners)
-				listener.lockAcquired(lock);
-		}
-		
-		// execute global listeners
-		for (IPropertiesFileLockListener listener : globalLockListeners)
-			listener.lockAcquired(lock);
-	}
-	
-	public synchronized void firePFLockReleased(PFLock lock) {
-		Set<IPropertiesFileLockListener> listeners = lockListenerMap.get(lock.getPropertiesFileID());
-		if (listeners != null) {
-			for (IPropertiesFileLockListener listener : listeners)		
-				listener.lockReleased(lock);
-		}
-		
-		// execute global listeners
-		for (IPropertiesFileLockListener listener : globalLockListeners)
-			listener.lockReleased(lock);
+		eventBus.removeGlobalListener(listener);
+	}
+
+	/**
+	 * Queues an acquired event for the lock. The listeners are notified within the next tick
+	 * of the event bus.
+	 * @param lock the acquired lock
+	 */
+	public void firePFLockAcquired(PFLock lock) {
+		eventBus.post(lock.snapshot(true));
+	}
+
+	/**
+	 * Queues a released event for the lock. The listeners are notified within the next tick
+	 * of the event bus.
+	 * @param lock the released lock
+	 */
+	public void firePFLockReleased(PFLock lock) {
+		eventBus.post(lock.snapshot(false));
 	}
 }
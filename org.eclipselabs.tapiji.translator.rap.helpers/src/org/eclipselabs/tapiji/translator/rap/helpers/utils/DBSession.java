@@ -0,0 +1,168 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.rap.rwt.RWT;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+import org.eclipselabs.tapiji.translator.rap.model.user.User;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Unit of work of one HTTP session. Every session has its own hibernate session on the
+ * {@link DBUtils#getDataStore() data store}, so concurrent users don't share one object graph.
+ * Only the users, which are looked up by the session (see {@link #getUser(String)}), and the
+ * objects reached from them (e.g. their resource bundles) are loaded, never the whole database.
+ *
+ * The hibernate session is opened on first access and closed when the user logs out, a save
+ * fails or the HTTP session is destroyed (see {@link #close(String)}).
+ */
+public class DBSession {
+	/** All open units of work, HTTP session id (as key) -> unit of work (as value) */
+	private static final Map<String, DBSession> sessions = new ConcurrentHashMap<String, DBSession>();
+
+	private final String sessionId;
+	/** Hibernate session, null if not opened */
+	private Session session = null;
+
+	private DBSession(String sessionId) {
+		this.sessionId = sessionId;
+	}
+
+	/**
+	 * Returns the unit of work of the current HTTP session. Must be called from the UI thread.
+	 * @return the unit of work, which will be created if it doesn't exist yet.
+	 */
+	public static DBSession getCurrent() {
+		return get(RWT.getUISession().getHttpSession().getId());
+	}
+
+	/**
+	 * Returns the unit of work of a HTTP session.
+	 * @param sessionId id of the HTTP session
+	 * @return the unit of work, which will be created if it doesn't exist yet.
+	 */
+	public static DBSession get(String sessionId) {
+		DBSession session = sessions.get(sessionId);
+		if (session == null) {
+			synchronized (sessions) {
+				session = sessions.get(sessionId);
+				if (session == null) {
+					session = new DBSession(sessionId);
+					sessions.put(sessionId, session);
+				}
+			}
+		}
+		return session;
+	}
+
+	/**
+	 * Closes the unit of work of a HTTP session. Does nothing if the session hasn't opened one.
+	 * @param sessionId id of the HTTP session
+	 */
+	public static void close(String sessionId) {
+		DBSession session = sessions.remove(sessionId);
+		if (session != null)
+			session.unload();
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	/**
+	 * Returns the hibernate session of this unit of work, opens it if this hasn't been done yet.
+	 * @return the open hibernate session
+	 */
+	private Session getSession() {
+		if (session == null || ! session.isOpen())
+			session = DBUtils.getDataStore().getSessionFactory().openSession();
+		return session;
+	}
+
+	/**
+	 * Returns the user with the given name (ignoring case) of this unit of work. The user is
+	 * loaded by a query on first access, later calls return the same object.
+	 * @param username name of a user
+	 * @return the user or null if no user with this name is registered
+	 */
+	public synchronized User getUser(String username) {
+		Query query = NamedQuery.USER_BY_USERNAME.create(getSession());
+		query.setParameter(NamedQuery.USER_BY_USERNAME.getParameterName(0), DBUtils.foldUsername(username));
+		query.setMaxResults(1);
+		List<?> results = query.list();
+		return ! results.isEmpty() && results.get(0) instanceof User ? (User) results.get(0) : null;
+	}
+
+	/**
+	 * Reads the state of a user and its resource bundles from the database again, e.g. to see
+	 * resource bundles, which other users have shared in the meantime. The objects of this unit of
+	 * work are updated in place. If the user doesn't belong to this unit of work anymore (e.g.
+	 * after a failed save), the user is looked up again.
+	 * @param user a user
+	 * @return the refreshed user or null if the user doesn't exist anymore
+	 */
+	public synchronized User refresh(User user) {
+		Session session = getSession();
+		if (! session.contains(user))
+			return getUser(user.getUsername());
+
+		try {
+			// resource bundles are refreshed by the cascade policy of the data store
+			session.refresh(user);
+			return user;
+		} catch (HibernateException e) {
+			// user has been deleted in the meantime
+			e.printStackTrace();
+			unload();
+			return null;
+		}
+	}
+
+	/**
+	 * Persists all changes of this unit of work in one transaction. New resource bundles of the
+	 * given user are saved with their properties files. If the save fails, the changes are rolled
+	 * back and the unit of work is discarded, its objects must not be used anymore.
+	 * @param user a user of this unit of work
+	 * @throws IOException if database write error occurs
+	 */
+	public synchronized void save(User user) throws IOException {
+		Session session = getSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.saveOrUpdate(user);
+			for (ResourceBundle rb : new ArrayList<ResourceBundle>(user.getStoredRBs()))
+				session.saveOrUpdate(rb);
+			transaction.commit();
+		} catch (HibernateException e) {
+			try {
+				transaction.rollback();
+			} catch (HibernateException rollbackException) {
+				rollbackException.printStackTrace();
+			}
+			// hibernate session is inconsistent after an exception
+			unload();
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Discards the loaded data, the next access loads the current state of the database.
+	 * Objects of this unit of work, which are still referenced, must not be saved anymore.
+	 */
+	public synchronized void unload() {
+		if (session == null)
+			return;
+
+		// close hibernate session -> release connection
+		if (session.isOpen())
+			session.close();
+		session = null;
+	}
+}
@@ -3,25 +3,23 @@ package org.eclipselabs.tapiji.translator.rap.helpers.utils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 
-import org.eclipse.emf.common.util.EList;
-import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
-import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.teneo.PersistenceOptions;
 import org.eclipse.emf.teneo.hibernate.HbDataStore;
 import org.eclipse.emf.teneo.hibernate.HbHelper;
-import org.eclipse.emf.teneo.hibernate.resource.HibernateResource;
-import org.eclipse.emf.teneo.resource.StoreResource;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
 import org.eclipselabs.tapiji.translator.rap.model.user.User;
 import org.eclipselabs.tapiji.translator.rap.model.user.UserPackage;
-import org.hibernate.cfg.Environment;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
 
 
 /**
@@ -47,10 +45,6 @@ public class DBUtils {
 	public static final String DS_NAME = "TranslatorDS";
 	/** Hibernate data store */
 	private static HbDataStore userDataStore = null;
-	/** Hibernate resource set */
-	private static ResourceSet resourceSet = new ResourceSetImpl();
-	/** Hibernate resource */
-	private static Resource resource = null;	
 	
 	
 	/**
@@ -78,31 +72,34 @@ public class DBUtils {
 	
 	/**
 	 * Initializes hibernate data store. Sets environment properties, such as driver, URL, username, 
-	 * password and dialect.
+	 * password and dialect of the configured database (see {@link #getDataStoreProperties()}).
 	 * Also initializes (UserPackage.eINSTANCE) and registers the EMF User Package.
 	 * 
 	 */
 	public static void initDataStore() {
+		initDataStore(getDataStoreProperties());
+	}
+	
+	/**
+	 * Returns the environment properties of the database, such as driver, URL, username, 
+	 * password, dialect and the connection pool settings. The database is selected by a 
+	 * profile, see {@link DataStoreConfig}. Default is the MySQL database.
+	 * @return properties of the data store
+	 */
+	public static Properties getDataStoreProperties() {
+		return DataStoreConfig.getProperties();
+	}
+	
+	/**
+	 * Initializes hibernate data store with the given environment properties. 
+	 * Does nothing if the data store is initialized already.
+	 * @param props properties of the data store, e.g. of an embedded database
+	 */
+	public static synchronized void initDataStore(Properties props) {
 		if (userDataStore != null)
 			return;
 		
 		userDataStore = (HbDataStore) HbHelper.INSTANCE.createRegisterDataStore(DS_NAME);
-		// Set Database properties
-        Properties props = new Properties();
-        props.setProperty(Environment.DRIVER, DB_DRIVER);
-        props.setProperty(Environment.URL, getEnvironmentURL());
-        props.setProperty(Environment.USER, DB_USER);
-        props.setProperty(Environment.PASS, DB_PASSWORD);
-        props.setProperty(Environment.DIALECT, org.hibernate.dialect.MySQL5InnoDBDialect.class.getName());
-        // use C3P0 as connection pool
-        props.setProperty(Environment.C3P0_MIN_SIZE, "5");				// minimum pool size, default = 1.
-        props.setProperty(Environment.C3P0_MAX_SIZE, "100");				// maximum pool size, default = 100. Must not be greater than database's max connections value. To see value for MySQL: show variables like "max_connections";
-//        props.setProperty(Environment.C3P0_TIMEOUT, "1800");				// seconds a connection can remain pooled but unused before being discarded. 0 means idle connections never expire.
-        props.setProperty(Environment.C3P0_MAX_STATEMENTS, "50");		// size of c3p0's PreparedStatement cache. 0 means statement caching is turned off.
-//        props.setProperty(Environment.C3P0_IDLE_TEST_PERIOD, "1800");		// If this is a number greater than 0, c3p0 will test all idle, pooled but unchecked-out connections, every this number of seconds. Must NOT be greater than TIMEOUT! Default = 0.
-        
-//        props.setProperty(Environment.SHOW_SQL, "true");        
-//        props.setProperty(Environment.HBM2DDL_AUTO, "create");
         props.setProperty(PersistenceOptions.CASCADE_POLICY_ON_NON_CONTAINMENT,
 				"REFRESH,PERSIST,MERGE");
         userDataStore.setDataStoreProperties(props);
@@ -119,98 +116,175 @@ public class DBUtils {
 	}
 	
 	/**
-	 * Returns all persisted data of the database as a hibernate resource (see {@link HibernateResource}). 
-	 * The hibernate resource contains the session, which handles the connection to the database. 
-	 * Therefore only one resource is used during the application's runtime. Loads the persistent data 
-	 * from database through a hibernate data store. So the hibernate data store must be initialized before
-	 * using this method (see {@link #initDataStore()}). 
-	 * @return Resource, that contains the persisted data of the database.
+	 * Runs a query with one parameter in a new hibernate session. The contents of the found object
+	 * (e.g. all properties files of a resource bundle) are resolved before the session is closed.
+	 * @param namedQuery the query, which has exactly one parameter
+	 * @param value value of the query parameter
+	 * @param containerOfResult true to resolve the container of the found object instead of the object
+	 * @return the first object found or null if there is none
 	 */
-	public static Resource getPersistentData() {
-		// Use only one hibernate resource through application runtime.
-		// TODO: Optimize connection handling -> Use a separate resource (session) for each user/display/session/UIThread
-		if (resource == null) {
-			// create new hibernate resource through hibernate datastore (specified by DS_NAME)
-			String uriStr = "hibernate://?"+HibernateResource.DS_NAME_PARAM+"="+DS_NAME;
-	        final URI uri = URI.createURI(uriStr);	        
-	        resource = resourceSet.createResource(uri);
-		}
-		
-		// load data from database into resource
-        try {
-        	resource.load(null);
-		} catch (IOException e) {
-			e.printStackTrace();
+	private static EObject querySingle(NamedQuery namedQuery, Object value, boolean containerOfResult) {
+		Session session = getDataStore().getSessionFactory().openSession();
+		try {
+			Query query = namedQuery.create(session);
+			query.setParameter(namedQuery.getParameterName(0), value);
+			query.setMaxResults(1);
+			List<?> results = query.list();
+			
+			EObject result = null;
+			if (! results.isEmpty() && results.get(0) instanceof EObject)
+				result = (EObject) results.get(0);
+			
+			if (result != null) {
+				EObject root = containerOfResult && result.eContainer() != null ? result.eContainer() : result;
+				// resolve all contained objects before closing the session 
+				// to avoid lazy loading later
+				EcoreUtil.resolveAll(root);
+			}
+			
+			return result;
+		} finally {
+			// close session -> release connection
+			session.close();
 		}
-        
-        return resource;
 	}
 	
-	
 	/**
-	 * 
-	 * @param query
-	 * @return
-	 */
-	private static Resource query(String query) {
-		String uriStr = "hibernate://?"+HibernateResource.DS_NAME_PARAM+"="+DS_NAME+"&"+
-				StoreResource.LOAD_STRATEGY_PARAM+"="+StoreResource.ADD_TO_CONTENTS+"&query1="+query;
-	    final URI uri = URI.createURI(uriStr);
-	    
-	    Resource resourceQuery = resourceSet.createResource(uri);
-	    
-        try {
-        	// load from database
-			resourceQuery.load(null);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-        
-        return resourceQuery;
+	 * Queries a properties file from database, bypassing the {@link PropertiesFileCache}.
+	 * All properties files of the owning resource bundle are resolved.
+	 * @param namedQuery a properties file query with one parameter
+	 * @param value value of the query parameter
+	 * @return the properties file or null if it isn't stored
+	 */
+	static PropertiesFile queryPropertiesFile(NamedQuery namedQuery, Object value) {
+		EObject result = querySingle(namedQuery, value, true);
+		return result instanceof PropertiesFile ? (PropertiesFile) result : null;
 	}
 	
-	private static PropertiesFile queryPropertiesFile(String whereQuery) {
-		PropertiesFile propFile = null;
-		
-		String query = "FROM PropertiesFile p WHERE " + whereQuery;
-		Resource resource = query(query);
-		List<EObject> results = resource.getContents();
-		if (! results.isEmpty() && results.get(0) instanceof PropertiesFile)
-			propFile = (PropertiesFile) results.get(0);
-		
-		if (propFile != null)			
-			// resolve all properties files of owned resource bundle 
-			// before unloading resource to avoid lazy loading later
-			EcoreUtil.resolveAll(propFile.getResourceBundle());
-		
-		// unload resource -> close connection
-		resource.unload();	
-		
-		return propFile;
+	/**
+	 * Queries a resource bundle and its properties files from database, bypassing the {@link PropertiesFileCache}.
+	 * @param rbID id of the resource bundle
+	 * @return the resource bundle or null if it isn't stored
+	 */
+	static ResourceBundle queryResourceBundle(long rbID) {
+		EObject result = querySingle(NamedQuery.RESOURCE_BUNDLE_BY_ID, rbID, false);
+		return result instanceof ResourceBundle ? (ResourceBundle) result : null;
 	}
 	
+	/**
+	 * Returns the stored properties file with the given path through the {@link PropertiesFileCache}.
+	 * The returned object must not be modified.
+	 * @param filePath absolute path of the properties file
+	 * @return the properties file or null if it isn't stored
+	 */
 	public static PropertiesFile getPropertiesFile(String filePath) {		
-		// replace backslash (\) with 2 backslashes to escape it in sql
-		// note: "\\\\" is resolved as one backslash, java + regex escape
-		String query = "p.path='" + filePath.replaceAll("\\\\", "\\\\\\\\") + "'";
-		return queryPropertiesFile(query);
+		return PropertiesFileCache.INSTANCE.getPropertiesFile(filePath);
 	}
 	
+	/**
+	 * Returns the stored properties file with the given id through the {@link PropertiesFileCache}.
+	 * The returned object must not be modified.
+	 * @param pfID id of the properties file
+	 * @return the properties file or null if it doesn't exist
+	 */
 	public static PropertiesFile getPropertiesFile(long pfID) {		
-		String query = "p.id='" + pfID+"'";
-		return queryPropertiesFile(query);
+		return PropertiesFileCache.INSTANCE.getPropertiesFile(pfID);
+	}
+	
+	/**
+	 * Returns the stored resource bundle with the given id through the {@link PropertiesFileCache}.
+	 * The returned object must not be modified.
+	 * @param rbID id of the resource bundle
+	 * @return the resource bundle or null if it doesn't exist
+	 */
+	public static ResourceBundle getResourceBundle(long rbID) {		
+		return PropertiesFileCache.INSTANCE.getResourceBundle(rbID);
 	}
 
-	public static List<User> getAllRegisteredUsers() {
-		Resource resource = getPersistentData();
-		EList<EObject> registeredObjects = resource.getContents();
-		
-		List<User> users = new ArrayList<User>();
-				
-		for (EObject obj : registeredObjects)
-			if (obj instanceof User)
-				users.add((User) obj);			
-		
-		return users;
+	/**
+	 * Returns the names of all registered users. Doesn't load the users.
+	 * @return usernames in alphabetical order
+	 */
+	public static List<String> getAllUsernames() {
+		Session session = getDataStore().getSessionFactory().openSession();
+		try {
+			List<String> usernames = new ArrayList<String>();
+			for (Object username : NamedQuery.USERNAMES.create(session).list())
+				usernames.add((String) username);
+			return usernames;
+		} finally {
+			session.close();
+		}
+	}
+	
+	/**
+	 * Queries a user by its name (ignoring case) in a new hibernate session, e.g. to authenticate it.
+	 * Only the attributes of the user are loaded, its resource bundles must not be accessed.
+	 * Use the session's unit of work to work with a user (see {@link DBSession#getUser(String)}).
+	 * @param username name of a user
+	 * @return the user or null if no user with this name is registered
+	 */
+	static User queryUser(String username) {
+		Session session = getDataStore().getSessionFactory().openSession();
+		try {
+			Query query = NamedQuery.USER_BY_USERNAME.create(session);
+			query.setParameter(NamedQuery.USER_BY_USERNAME.getParameterName(0), foldUsername(username));
+			query.setMaxResults(1);
+			List<?> results = query.list();
+			return ! results.isEmpty() && results.get(0) instanceof User ? (User) results.get(0) : null;
+		} finally {
+			// close session -> release connection
+			session.close();
+		}
+	}
+	
+	/**
+	 * Stores a new user in a new hibernate session.
+	 * @param user the new user
+	 * @throws IOException if database write error occurs, e.g. if the username exists already
+	 */
+	static void insertUser(User user) throws IOException {
+		Session session = getDataStore().getSessionFactory().openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.save(user);
+			transaction.commit();
+		} catch (HibernateException e) {
+			transaction.rollback();
+			throw new IOException(e.getMessage(), e);
+		} finally {
+			session.close();
+		}
+	}
+	
+	/**
+	 * Deletes a user in a new hibernate session. Does nothing if the user doesn't exist.
+	 * @param username name of the user (ignoring case)
+	 * @throws IOException if database delete error occurs
+	 */
+	static void deleteUser(String username) throws IOException {
+		Session session = getDataStore().getSessionFactory().openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			Query query = NamedQuery.USER_BY_USERNAME.create(session);
+			query.setParameter(NamedQuery.USER_BY_USERNAME.getParameterName(0), foldUsername(username));
+			for (Object user : query.list())
+				session.delete(user);
+			transaction.commit();
+		} catch (HibernateException e) {
+			transaction.rollback();
+			throw new IOException(e.getMessage(), e);
+		} finally {
+			session.close();
+		}
+	}
+	
+	/**
+	 * Folds a username for case insensitive lookups.
+	 * @param username name of a user
+	 * @return the case-folded username
+	 */
+	static String foldUsername(String username) {
+		return username.toLowerCase(Locale.ENGLISH);
 	}
 }
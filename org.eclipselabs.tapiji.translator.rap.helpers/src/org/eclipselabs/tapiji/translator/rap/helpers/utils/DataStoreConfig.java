@@ -0,0 +1,129 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.hibernate.cfg.Environment;
+
+/**
+ * Configuration of the hibernate data store. A profile selects the database:
+ * <ul>
+ * <li>{@link #MYSQL} - MySQL server (default), see {@link DBUtils#getEnvironmentURL()}</li>
+ * <li>{@link #H2_MEMORY} - in-memory H2 database in MySQL mode</li>
+ * <li>{@link #H2_FILE} - file based H2 database in MySQL mode, stored in the directory given by
+ * the system property {@link #DIRECTORY_PROPERTY} (default: user home)</li>
+ * <li>{@link #HSQLDB_MEMORY} - in-memory HSQLDB database with MySQL syntax</li>
+ * </ul>
+ * The profile is chosen by the system property {@link #PROFILE_PROPERTY}. Any property
+ * (e.g. URL, credentials or pool sizes) can be overridden by a properties file, which is given
+ * by the system property {@link #CONFIG_FILE_PROPERTY}.
+ *
+ * The embedded databases ignore the case of strings like MySQL does with its default collation,
+ * so user names stay case insensitive unique. Their tables are created on start up.
+ */
+public class DataStoreConfig {
+	/** System property, which selects the profile */
+	public static final String PROFILE_PROPERTY = "tapiji.datastore.profile";
+	/** System property with the path of a properties file, which overrides data store properties */
+	public static final String CONFIG_FILE_PROPERTY = "tapiji.datastore.config";
+	/** System property with the directory of file based databases */
+	public static final String DIRECTORY_PROPERTY = "tapiji.datastore.dir";
+
+	public static final String MYSQL = "mysql";
+	public static final String H2_MEMORY = "h2-mem";
+	public static final String H2_FILE = "h2-file";
+	public static final String HSQLDB_MEMORY = "hsqldb-mem";
+
+	/**
+	 * Returns the data store properties of the profile selected by the system properties.
+	 * @return properties of the data store
+	 */
+	public static Properties getProperties() {
+		Properties props = getProperties(System.getProperty(PROFILE_PROPERTY, MYSQL));
+
+		String configFile = System.getProperty(CONFIG_FILE_PROPERTY);
+		if (configFile != null) {
+			InputStream in = null;
+			try {
+				in = new FileInputStream(configFile);
+				props.load(in);
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				if (in != null)
+					try {
+						in.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+			}
+		}
+
+		return props;
+	}
+
+	/**
+	 * Returns the data store properties of a profile.
+	 * @param profile name of the profile, e.g. {@link #H2_MEMORY}
+	 * @return properties of the data store
+	 * @throws IllegalArgumentException if the profile doesn't exist
+	 */
+	public static Properties getProperties(String profile) {
+		Properties props = new Properties();
+
+		if (MYSQL.equals(profile)) {
+			props.setProperty(Environment.DRIVER, DBUtils.DB_DRIVER);
+			props.setProperty(Environment.URL, DBUtils.getEnvironmentURL());
+			props.setProperty(Environment.USER, DBUtils.DB_USER);
+			props.setProperty(Environment.PASS, DBUtils.DB_PASSWORD);
+			props.setProperty(Environment.DIALECT, org.hibernate.dialect.MySQL5InnoDBDialect.class.getName());
+			setPoolProperties(props, 5, 100);
+		} else if (H2_MEMORY.equals(profile) || H2_FILE.equals(profile)) {
+			String db = H2_MEMORY.equals(profile) ? "mem:" + DBUtils.DB_NAME
+					: "file:" + System.getProperty(DIRECTORY_PROPERTY, "~") + "/" + DBUtils.DB_NAME;
+			props.setProperty(Environment.DRIVER, "org.h2.Driver");
+			// keep in-memory database as long as the virtual machine is running
+			props.setProperty(Environment.URL, "jdbc:h2:" + db + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+			props.setProperty(Environment.USER, "sa");
+			props.setProperty(Environment.PASS, "");
+			props.setProperty(Environment.DIALECT, org.hibernate.dialect.H2Dialect.class.getName());
+			props.setProperty(Environment.HBM2DDL_AUTO, "update");
+			setPoolProperties(props, 1, 20);
+		} else if (HSQLDB_MEMORY.equals(profile)) {
+			props.setProperty(Environment.DRIVER, "org.hsqldb.jdbc.JDBCDriver");
+			props.setProperty(Environment.URL, "jdbc:hsqldb:mem:" + DBUtils.DB_NAME
+					+ ";sql.syntax_mys=true;sql.ignore_case=true");
+			props.setProperty(Environment.USER, "sa");
+			props.setProperty(Environment.PASS, "");
+			props.setProperty(Environment.DIALECT, org.hibernate.dialect.HSQLDialect.class.getName());
+			props.setProperty(Environment.HBM2DDL_AUTO, "update");
+			setPoolProperties(props, 1, 20);
+		} else {
+			throw new IllegalArgumentException("Unknown data store profile: " + profile);
+		}
+
+		return props;
+	}
+
+	/**
+	 * Sets the C3P0 connection pool properties.
+	 * @param minSize minimum pool size
+	 * @param maxSize maximum pool size, must not be greater than database's max connections value.
+	 * To see value for MySQL: show variables like "max_connections";
+	 */
+	private static void setPoolProperties(Properties props, int minSize, int maxSize) {
+		props.setProperty(Environment.C3P0_MIN_SIZE, String.valueOf(minSize));
+		props.setProperty(Environment.C3P0_MAX_SIZE, String.valueOf(maxSize));
+		// connections acquired at once, if the pool is exhausted
+		props.setProperty(Environment.C3P0_ACQUIRE_INCREMENT, "5");
+		// seconds a connection can remain pooled but unused before being discarded (MySQL drops them after 8h)
+		props.setProperty(Environment.C3P0_TIMEOUT, "1800");
+		// test idle connections every 5 minutes, must NOT be greater than TIMEOUT
+		props.setProperty(Environment.C3P0_IDLE_TEST_PERIOD, "300");
+		// size of c3p0's PreparedStatement cache, the queries of NamedQuery are prepared once per connection
+		props.setProperty(Environment.C3P0_MAX_STATEMENTS, String.valueOf(maxSize * 10));
+		props.setProperty("hibernate.c3p0.maxStatementsPerConnection", "20");
+	}
+}
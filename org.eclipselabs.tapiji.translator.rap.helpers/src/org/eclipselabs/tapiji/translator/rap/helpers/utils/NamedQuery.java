@@ -0,0 +1,70 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.utils;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+
+/**
+ * A HQL query with named parameters. Values are always bound as parameters and never
+ * concatenated into the query string, so every execution uses the same query string.
+ * Hibernate reuses the parsed query plan (query plan cache) and the connection pool reuses
+ * the prepared statement (c3p0 statement cache).
+ */
+public class NamedQuery {
+	/** Properties file by its id, parameter "id" */
+	public static final NamedQuery PROPERTIES_FILE_BY_ID = new NamedQuery("PropertiesFile.byId",
+			"FROM PropertiesFile p WHERE p.id = :id", "id");
+	/** Properties file by its absolute path, parameter "path" */
+	public static final NamedQuery PROPERTIES_FILE_BY_PATH = new NamedQuery("PropertiesFile.byPath",
+			"FROM PropertiesFile p WHERE p.path = :path", "path");
+	/** Resource bundle by its id, parameter "id" */
+	public static final NamedQuery RESOURCE_BUNDLE_BY_ID = new NamedQuery("ResourceBundle.byId",
+			"FROM ResourceBundle rb WHERE rb.id = :id", "id");
+	/**
+	 * User by the case-folded username, parameter "username". The collation of the databases
+	 * ignores case (see {@link DataStoreConfig}), so the primary key index of the username is used.
+	 */
+	public static final NamedQuery USER_BY_USERNAME = new NamedQuery("User.byUsername",
+			"FROM User u WHERE u.username = :username", "username");
+	/** Names of all registered users in alphabetical order, no parameter */
+	public static final NamedQuery USERNAMES = new NamedQuery("User.usernames",
+			"SELECT u.username FROM User u ORDER BY u.username");
+
+	private final String name;
+	private final String queryString;
+	private final String[] parameterNames;
+
+	public NamedQuery(String name, String queryString, String... parameterNames) {
+		this.name = name;
+		this.queryString = queryString;
+		this.parameterNames = parameterNames;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getQueryString() {
+		return queryString;
+	}
+
+	public String getParameterName(int index) {
+		return parameterNames[index];
+	}
+
+	/**
+	 * Creates the query in a hibernate session. The parameters must be set before executing it.
+	 * @param session an open hibernate session
+	 * @return the created query
+	 */
+	public Query create(Session session) {
+		Query query = session.createQuery(queryString);
+		// name appears in the SQL log, if hibernate.use_sql_comments is enabled
+		query.setComment(name);
+		return query;
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + queryString;
+	}
+}
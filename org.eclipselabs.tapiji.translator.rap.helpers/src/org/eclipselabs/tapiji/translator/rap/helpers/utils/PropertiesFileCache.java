@@ -0,0 +1,158 @@
+package org.eclipselabs.tapiji.translator.rap.helpers.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+
+/**
+ * Read-through cache of stored properties files (by id and by path) and their resource
+ * bundles (by id). A miss queries the database once; the resource bundle of the found
+ * properties file is cached together with all its properties files. Paths, which don't
+ * belong to a stored properties file, are remembered as well.
+ *
+ * The cached objects are shared by all sessions and must not be modified. Whenever a stored
+ * resource bundle changes, the resource bundle must be invalidated (see {@link #invalidate(ResourceBundle)}).
+ */
+public class PropertiesFileCache {
+	/** Maximum number of remembered paths without a stored properties file */
+	public static final int MAX_MISSING_PATHS = 1024;
+
+	public static final PropertiesFileCache INSTANCE = new PropertiesFileCache();
+
+	private final Map<Long, PropertiesFile> filesById = new HashMap<Long, PropertiesFile>();
+	private final Map<String, PropertiesFile> filesByPath = new HashMap<String, PropertiesFile>();
+	private final Map<Long, ResourceBundle> bundlesById = new HashMap<Long, ResourceBundle>();
+	private final Set<String> missingPaths = new HashSet<String>();
+	/** Incremented on every invalidation, query results of an older generation aren't cached */
+	private long generation = 0;
+
+	/**
+	 * Returns the stored properties file with the given id.
+	 * @param pfID id of the properties file
+	 * @return the properties file or null if it doesn't exist
+	 */
+	public PropertiesFile getPropertiesFile(long pfID) {
+		long queryGeneration;
+		synchronized (this) {
+			PropertiesFile file = filesById.get(pfID);
+			if (file != null)
+				return file;
+			queryGeneration = generation;
+		}
+		return put(DBUtils.queryPropertiesFile(NamedQuery.PROPERTIES_FILE_BY_ID, pfID), queryGeneration);
+	}
+
+	/**
+	 * Returns the stored properties file with the given absolute path.
+	 * @param filePath absolute path of the properties file
+	 * @return the properties file or null if it isn't stored
+	 */
+	public PropertiesFile getPropertiesFile(String filePath) {
+		long queryGeneration;
+		synchronized (this) {
+			PropertiesFile file = filesByPath.get(filePath);
+			if (file != null || missingPaths.contains(filePath))
+				return file;
+			queryGeneration = generation;
+		}
+
+		PropertiesFile file = put(DBUtils.queryPropertiesFile(NamedQuery.PROPERTIES_FILE_BY_PATH, filePath), 
+				queryGeneration);
+		if (file == null) {
+			synchronized (this) {
+				if (queryGeneration != generation)
+					return null;
+				if (missingPaths.size() >= MAX_MISSING_PATHS)
+					missingPaths.clear();
+				missingPaths.add(filePath);
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Returns the stored resource bundle with the given id.
+	 * @param rbID id of the resource bundle
+	 * @return the resource bundle or null if it doesn't exist
+	 */
+	public ResourceBundle getResourceBundle(long rbID) {
+		long queryGeneration;
+		synchronized (this) {
+			ResourceBundle rb = bundlesById.get(rbID);
+			if (rb != null)
+				return rb;
+			queryGeneration = generation;
+		}
+		ResourceBundle rb = DBUtils.queryResourceBundle(rbID);
+		if (rb != null)
+			put(rb, queryGeneration);
+		return rb;
+	}
+
+	private PropertiesFile put(PropertiesFile file, long queryGeneration) {
+		if (file != null && file.getResourceBundle() != null)
+			put(file.getResourceBundle(), queryGeneration);
+		return file;
+	}
+
+	private synchronized void put(ResourceBundle rb, long queryGeneration) {
+		// cache has been invalidated while querying -> result could be outdated
+		if (queryGeneration != generation)
+			return;
+		// another thread might have cached a different instance in the meantime
+		remove(rb.getId());
+		bundlesById.put(rb.getId(), rb);
+		for (PropertiesFile file : rb.getPropertiesFiles()) {
+			filesById.put(file.getId(), file);
+			filesByPath.put(file.getPath(), file);
+			missingPaths.remove(file.getPath());
+		}
+	}
+
+	/**
+	 * Removes a resource bundle and its properties files from the cache. The next lookup
+	 * reads the current state of the database. Must be called whenever a stored resource bundle
+	 * or one of its properties files is changed, e.g. renamed.
+	 * @param rb a resource bundle (of any session)
+	 */
+	public synchronized void invalidate(ResourceBundle rb) {
+		if (rb == null)
+			return;
+		generation++;
+		remove(rb.getId());
+		// paths of new files may have been remembered as missing
+		missingPaths.clear();
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public synchronized void clear() {
+		generation++;
+		filesById.clear();
+		filesByPath.clear();
+		bundlesById.clear();
+		missingPaths.clear();
+	}
+
+	private void remove(long rbID) {
+		ResourceBundle cached = bundlesById.remove(rbID);
+		if (cached == null)
+			return;
+
+		// the cached files could be outdated, so don't rely on their current ids and paths
+		for (Iterator<PropertiesFile> it = filesById.values().iterator(); it.hasNext(); ) {
+			if (it.next().getResourceBundle() == cached)
+				it.remove();
+		}
+		for (Iterator<PropertiesFile> it = filesByPath.values().iterator(); it.hasNext(); ) {
+			if (it.next().getResourceBundle() == cached)
+				it.remove();
+		}
+	}
+}
@@ -4,9 +4,6 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.eclipse.emf.common.util.EList;
-import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.rap.rwt.RWT;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.contexts.IContextActivation;
@@ -68,23 +65,18 @@ public class UserUtils {
 	 * @return The existing user object if username and password correct, otherwise null.
 	 */
 	public static User verifyUser(String username, String password) {
-		Resource resource = DBUtils.getPersistentData();
-		EList<EObject> registeredObjects = resource.getContents();
+		User user = DBUtils.queryUser(username);
 		
-		for (EObject obj : registeredObjects) {
-			if (obj instanceof User) {
-				User user = (User) obj;
-				if (user.getUsername().equals(username)) {
-					// password + username correct
-					if (user.equalsPassword(password))
-						return user;
-					// password is incorrect
-					return null;
-				}
-			}
-		}
-		// username not found
-		return null;
+		// username not found (usernames are case sensitive at login)
+		if (user == null || ! user.getUsername().equals(username))
+			return null;
+		
+		// password is incorrect
+		if (! user.equalsPassword(password))
+			return null;
+		
+		// password + username correct
+		return user;
 	}
 
 	/**
@@ -95,6 +87,12 @@ public class UserUtils {
 	 */
 	public static User loginUser(String username, String password) {
 		User user = verifyUser(username, password);
+		if (user != null) {
+			// start a new unit of work with the current state of the database
+			DBSession session = DBSession.getCurrent();
+			session.unload();
+			user = session.getUser(username);
+		}
 		if (user != null) {
 			RWT.getUISession().getHttpSession().setAttribute(UserUtils.SESSION_USER_ATT, user);
 			setUserLoggedInContext(true);
@@ -103,6 +101,27 @@ public class UserUtils {
 		return user;
 	}
 
+	/**
+	 * Refreshes the logged in user and its resource bundles with the current state of the database,
+	 * e.g. with resource bundles, which other users have shared in the meantime. The objects of
+	 * the session's unit of work are updated in place. Only if the unit of work has been discarded
+	 * (e.g. by a failed save), the user is loaded again as a new object.
+	 * @return the refreshed user or null if no user is logged in or the user doesn't exist anymore
+	 */
+	public static User reloadUser() {
+		User user = getUser();
+		if (user == null)
+			return null;
+		
+		User reloadedUser = DBSession.getCurrent().refresh(user);
+		// user has been deleted in the meantime
+		if (reloadedUser == null)
+			setUserLoggedInContext(false);
+		RWT.getUISession().getHttpSession().setAttribute(UserUtils.SESSION_USER_ATT, reloadedUser);
+		
+		return reloadedUser;
+	}
+
 	/**
 	 * The user stored in the session will be logged out. No exception will be thrown if no user is logged in.
 	 * @return The user who was logged in or null if no user was logged in.
@@ -111,6 +130,8 @@ public class UserUtils {
 		User user = getUser();
 		setUserLoggedInContext(false);
 		RWT.getUISession().getHttpSession().setAttribute(UserUtils.SESSION_USER_ATT, null);		
+		// discard data of the logged out user
+		DBSession.getCurrent().unload();
 		return user;
 	}
 
@@ -120,20 +141,8 @@ public class UserUtils {
 	 * @return true if the user exists or false if not.
 	 */
 	public static boolean existsUser(String username) {
-		Resource resource = DBUtils.getPersistentData();
-		EList<EObject> registeredObjects = resource.getContents();
-		
-		for (EObject obj : registeredObjects) {
-			if (obj instanceof User) {
-				User user = (User) obj;
-				// not case sensitive
-				if (user.getUsername().toLowerCase().equals(username.toLowerCase())) {
-					return true;
-				}
-			}
-		}
-		// username not found
-		return false;
+		// not case sensitive
+		return DBUtils.queryUser(username) != null;
 	}
 
 	/**
@@ -151,10 +160,7 @@ public class UserUtils {
 		newUser.setUsername(username);
 		newUser.setPasswordEncrypted(password);
 		
-		Resource resource = DBUtils.getPersistentData();
-		resource.getContents().add(newUser);
-		
-		resource.save(null);
+		DBUtils.insertUser(newUser);
 		
 		return newUser;		
 	}
@@ -165,13 +171,8 @@ public class UserUtils {
 	 * @throws IOException if database delete error occurs
 	 */
 	public static void unregisterUser(User user) throws IOException {
-		if (! existsUser(user.getUsername()))
-			return;
-		
-		Resource resource = DBUtils.getPersistentData();
-		resource.getContents().remove(user);
-		
-		resource.save(null);
+		// user could be an object of any unit of work
+		DBUtils.deleteUser(user.getUsername());
 	}
 
 	/**
@@ -182,18 +183,15 @@ public class UserUtils {
 		return (User) RWT.getUISession().getHttpSession().getAttribute(UserUtils.SESSION_USER_ATT);
 	}
 	
+	/**
+	 * Returns a user of the current session's unit of work.
+	 * @param username name of the user
+	 * @return the user or null if username doesn't exist.
+	 */
 	public static User getUser(String username) {
-		Resource resource = DBUtils.getPersistentData();
-		EList<EObject> registeredObjects = resource.getContents();
-		
-		for (EObject obj : registeredObjects) {
-			if (obj instanceof User) {
-				User user = (User) obj;
-				if (user.getUsername().equals(username)) {
-					return user;
-				}
-			}
-		}
+		User user = DBSession.getCurrent().getUser(username);
+		if (user != null && user.getUsername().equals(username))
+			return user;
 		// username not found
 		return null;
 	}
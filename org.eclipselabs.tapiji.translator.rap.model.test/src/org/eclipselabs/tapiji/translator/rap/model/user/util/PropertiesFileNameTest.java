@@ -0,0 +1,103 @@
+package org.eclipselabs.tapiji.translator.rap.model.user.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class PropertiesFileNameTest {
+
+	private static void assertParsed(String path, String bundleName, String locale, String extension) {
+		PropertiesFileName name = PropertiesFileName.parse(path);
+		assertEquals(bundleName, name.getBundleName());
+		assertEquals(locale, name.getLocale());
+		assertEquals(extension, name.getExtension());
+	}
+
+	@Test
+	public void testLocaleSuffixes() {
+		assertParsed("messages_de.properties", "messages", "de", "properties");
+		assertParsed("messages_gsw.properties", "messages", "gsw", "properties");
+		assertParsed("messages_de_AT.properties", "messages", "de_AT", "properties");
+		assertParsed("messages_de_AT_Wien.properties", "messages", "de_AT_Wien", "properties");
+		assertParsed("messages_ja_JP_JP_2.properties", "messages", "ja_JP_JP_2", "properties");
+
+		PropertiesFileName name = PropertiesFileName.parse("messages_de_AT.properties");
+		assertEquals("_de_AT", name.getLocaleSuffix());
+		assertEquals(new Locale("de", "AT"), name.toLocale());
+		assertEquals(new Locale("de"), PropertiesFileName.parse("messages_de.properties").toLocale());
+		assertEquals(new Locale("de", "AT", "Wien"),
+				PropertiesFileName.parse("messages_de_AT_Wien.properties").toLocale());
+	}
+
+	@Test
+	public void testNamesWithoutLocale() {
+		assertParsed("messages.properties", "messages", null, "properties");
+		// no language
+		assertParsed("messages_DE.properties", "messages_DE", null, "properties");
+		assertParsed("messages_d.properties", "messages_d", null, "properties");
+		assertParsed("messages_deutsch.properties", "messages_deutsch", null, "properties");
+		// no country
+		assertParsed("messages_de_A.properties", "messages_de_A", null, "properties");
+		// starts with the extension
+		assertParsed(".properties", "", null, "properties");
+
+		PropertiesFileName name = PropertiesFileName.parse("messages.properties");
+		assertEquals("", name.getLocaleSuffix());
+		assertNull(name.toLocale());
+	}
+
+	@Test
+	public void testNamesWithoutExtension() {
+		assertParsed("messages", "messages", null, null);
+		// a filename without extension has no locale
+		assertParsed("messages_de", "messages_de", null, null);
+	}
+
+	@Test
+	public void testNamesWithMultipleUnderscores() {
+		assertParsed("my_messages.properties", "my_messages", null, "properties");
+		assertParsed("my_app_messages_fr_CA.properties", "my_app_messages", "fr_CA", "properties");
+		// a lower case word isn't a locale, even if it starts with one
+		assertParsed("my_en_messages.properties", "my_en_messages", null, "properties");
+		// the first underscore, which is followed by a locale, separates the bundle name
+		assertParsed("app_en_US_de.properties", "app", "en_US_de", "properties");
+		assertParsed("messages__de.properties", "messages_", "de", "properties");
+		// a lower case country isn't part of the locale, but is a language itself
+		assertParsed("messages_de_at.properties", "messages_de", "at", "properties");
+	}
+
+	@Test
+	public void testNamesWithMultipleDots() {
+		assertParsed("org.app.messages.properties", "org.app.messages", null, "properties");
+		assertParsed("org.app.messages_de_AT.properties", "org.app.messages", "de_AT", "properties");
+		assertParsed("messages_de.properties.bak", "messages_de.properties", null, "bak");
+		assertParsed("messages.", "messages", null, "");
+	}
+
+	@Test
+	public void testPaths() {
+		PropertiesFileName name = PropertiesFileName.parse("/home/user/project/messages_en.properties");
+		assertEquals("messages_en.properties", name.getFilename());
+		assertEquals("messages", name.getBundleName());
+		assertEquals("en", name.getLocale());
+
+		name = PropertiesFileName.parse("project" + File.separator + "my.app_de.properties");
+		assertEquals("my.app_de.properties", name.getFilename());
+		assertEquals("my.app", name.getBundleName());
+
+		// the directory doesn't contribute to the bundle name
+		assertParsed("/my_de_AT/messages.properties", "messages", null, "properties");
+	}
+
+	@Test
+	public void testEquals() {
+		PropertiesFileName name = PropertiesFileName.parse("/a/messages_de.properties");
+		PropertiesFileName sameName = PropertiesFileName.parse("/b/messages_de.properties");
+		assertEquals(name, sameName);
+		assertEquals(name.hashCode(), sameName.hashCode());
+		assertFalse(name.equals(PropertiesFileName.parse("messages_en.properties")));
+	}
+}
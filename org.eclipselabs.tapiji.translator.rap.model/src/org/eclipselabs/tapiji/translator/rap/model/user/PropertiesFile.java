@@ -3,6 +3,7 @@
 package org.eclipselabs.tapiji.translator.rap.model.user;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipselabs.tapiji.translator.rap.model.user.util.PropertiesFileName;
 
 /**
  * <!-- begin-user-doc -->
@@ -100,10 +101,22 @@ public interface PropertiesFile extends EObject {
 
 	/**
 	 * <!-- begin-user-doc -->
+	 * Returns the locale of the filename, e.g. "de_AT" for "messages_de_AT.properties".
+	 * @return the locale or null, if it's the default file of the bundle
 	 * <!-- end-user-doc -->
 	 * @model kind="operation"
 	 * @generated
 	 */
 	String getLocale();
 
+	/**
+	 * <!-- begin-user-doc -->
+	 * Returns the bundle name, locale and extension of the filename. The parsed filename
+	 * is cached until the path changes.
+	 * @return the parsed filename or null, if the path isn't set
+	 * <!-- end-user-doc -->
+	 * @generated NOT
+	 */
+	PropertiesFileName getParsedFilename();
+
 } // PropertiesFile
@@ -9,6 +9,7 @@ import org.eclipse.emf.ecore.impl.EObjectImpl;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
 import org.eclipselabs.tapiji.translator.rap.model.user.UserPackage;
+import org.eclipselabs.tapiji.translator.rap.model.user.util.PropertiesFileName;
 
 /**
  * <!-- begin-user-doc -->
@@ -65,6 +66,30 @@ public class PropertiesFileImpl extends EObjectImpl implements PropertiesFile {
 	 */
 	protected String path = PATH_EDEFAULT;
 
+	/**
+	 * Parsed filename and the path, which it has been parsed from.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated NOT
+	 */
+	private static final class ParsedPath {
+		final String path;
+		final PropertiesFileName filename;
+
+		ParsedPath(String path) {
+			this.path = path;
+			this.filename = PropertiesFileName.parse(path);
+		}
+	}
+
+	/**
+	 * The cached parsed filename, it's replaced when the path changes.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated NOT
+	 */
+	private volatile ParsedPath parsedPath;
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -132,12 +157,26 @@ public class PropertiesFileImpl extends EObjectImpl implements PropertiesFile {
 	 * @generated NOT
 	 */
 	public String getFilename() {
-		if (path != null) {
-			java.io.File file = new java.io.File(path);
-			return file.getName();
-		}
+		PropertiesFileName filename = getParsedFilename();
+		return filename != null ? filename.getFilename() : null;
+	}
+
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated NOT
+	 */
+	public PropertiesFileName getParsedFilename() {
+		String currentPath = path;
+		if (currentPath == null)
+			return null;
 		
-		return null;
+		ParsedPath parsed = parsedPath;
+		if (parsed == null || ! parsed.path.equals(currentPath)) {
+			parsed = new ParsedPath(currentPath);
+			parsedPath = parsed;
+		}
+		return parsed.filename;
 	}
 
 	/**
@@ -173,16 +212,9 @@ public class PropertiesFileImpl extends EObjectImpl implements PropertiesFile {
 	 * @generated NOT
 	 */
 	public String getLocale() {
-		String filename = getFilename();
-		String locale = null;
-		if (filename != null) {
-			// filename -> BUNDLENAME_LOCAL.EXT			
-			int indexOfPoint = filename.lastIndexOf('.');			
-			int indexOfUnderscore = filename.lastIndexOf('_');
-			if (indexOfPoint != -1 && indexOfUnderscore != -1)			
-				locale = filename.substring(indexOfUnderscore+1,indexOfPoint);
-		}
-		return locale;
+		// filename -> BUNDLENAME_LOCAL.EXT
+		PropertiesFileName filename = getParsedFilename();
+		return filename != null ? filename.getLocale() : null;
 	}
 
 	/**
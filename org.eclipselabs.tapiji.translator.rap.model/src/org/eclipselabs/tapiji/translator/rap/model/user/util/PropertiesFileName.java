@@ -0,0 +1,169 @@
+package org.eclipselabs.tapiji.translator.rap.model.user.util;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Bundle name, locale and extension of a properties file, parsed from its filename
+ * (BUNDLENAME[_LOCALE].EXT). Immutable.
+ *
+ * The filename is scanned once without regular expressions. A locale is a language
+ * (2-3 lower case letters) with an optional country (2 upper case letters) and variant,
+ * the first underscore, which is followed by a locale, separates it from the bundle name.
+ * Examples: "messages_de_AT.properties" -> ("messages", "de_AT", "properties"),
+ * "my_messages.properties" -> ("my_messages", null, "properties").
+ */
+public final class PropertiesFileName {
+	private final String filename;
+	private final String bundleName;
+	private final String locale;
+	private final String extension;
+
+	private PropertiesFileName(String filename, String bundleName, String locale, String extension) {
+		this.filename = filename;
+		this.bundleName = bundleName;
+		this.locale = locale;
+		this.extension = extension;
+	}
+
+	/**
+	 * Parses the filename of a path.
+	 * @param path a path or a filename
+	 * @return the parsed filename
+	 */
+	public static PropertiesFileName parse(String path) {
+		int start = Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar)) + 1;
+		String filename = start == 0 ? path : path.substring(start);
+
+		int dot = filename.lastIndexOf('.');
+		// a filename without extension has no locale
+		if (dot == -1)
+			return new PropertiesFileName(filename, filename, null, null);
+
+		int localeStart = dot;
+		for (int i = filename.indexOf('_'); i != -1 && i < dot; i = filename.indexOf('_', i + 1)) {
+			if (isLocale(filename, i + 1, dot)) {
+				localeStart = i;
+				break;
+			}
+		}
+
+		return new PropertiesFileName(filename, filename.substring(0, localeStart),
+				localeStart < dot ? filename.substring(localeStart + 1, dot) : null,
+				filename.substring(dot + 1));
+	}
+
+	/**
+	 * Checks if the characters from start (inclusive) to end (exclusive) are a locale.
+	 */
+	private static boolean isLocale(String s, int start, int end) {
+		// language has 3 or 2 letters
+		for (int length = 3; length >= 2; length--) {
+			int country = start + length;
+			if (country > end || ! isLowerCase(s, start, country))
+				continue;
+			if (country == end)
+				return true;
+			if (s.charAt(country) != '_' || country + 3 > end || ! isUpperCase(s, country + 1, country + 3))
+				continue;
+			int variant = country + 3;
+			if (variant == end)
+				return true;
+			if (s.charAt(variant) == '_' && isWordCharacters(s, variant + 1, end))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isLowerCase(String s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if (c < 'a' || c > 'z')
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isUpperCase(String s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if (c < 'A' || c > 'Z')
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isWordCharacters(String s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z') && (c < '0' || c > '9') && c != '_')
+				return false;
+		}
+		return true;
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	/**
+	 * @return the bundle name, an empty string if the filename starts with the extension
+	 */
+	public String getBundleName() {
+		return bundleName;
+	}
+
+	/**
+	 * @return the locale (e.g. "de_AT") or null, if it's the default file of the bundle
+	 */
+	public String getLocale() {
+		return locale;
+	}
+
+	/**
+	 * @return the locale with leading underscore (e.g. "_de_AT") or an empty string, if it's
+	 * the default file of the bundle
+	 */
+	public String getLocaleSuffix() {
+		return locale != null ? "_" + locale : "";
+	}
+
+	/**
+	 * @return the locale or null, if it's the default file of the bundle
+	 */
+	public Locale toLocale() {
+		if (locale == null)
+			return null;
+		int country = locale.indexOf('_');
+		if (country == -1)
+			return new Locale(locale);
+		int variant = locale.indexOf('_', country + 1);
+		if (variant == -1)
+			return new Locale(locale.substring(0, country), locale.substring(country + 1));
+		return new Locale(locale.substring(0, country), locale.substring(country + 1, variant),
+				locale.substring(variant + 1));
+	}
+
+	/**
+	 * @return the extension without dot or null, if the filename has no extension
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof PropertiesFileName && filename.equals(((PropertiesFileName) obj).filename);
+	}
+
+	@Override
+	public int hashCode() {
+		return filename.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "PropertiesFileName [bundleName=" + bundleName + ", locale=" + locale
+				+ ", extension=" + extension + "]";
+	}
+}
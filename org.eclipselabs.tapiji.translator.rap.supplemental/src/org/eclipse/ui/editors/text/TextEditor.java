@@ -6,8 +6,10 @@ import java.io.IOException;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.IStatusLineManager;
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.viewers.ISelectionProvider;
 import org.eclipse.swt.SWT;
@@ -24,6 +26,7 @@ import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.part.EditorPart;
 import org.eclipse.ui.texteditor.DocumentProvider;
 import org.eclipse.ui.texteditor.ITextEditor;
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.PropertiesFileDeltaLog;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.RBLockManager;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
@@ -48,6 +51,8 @@ public class TextEditor extends EditorPart implements ITextEditor {
 	private boolean dirty = false;
     private DocumentProvider documentProvider;
     private String fileContent;
+    /** true if the user has been told, that the lock of the file is lost */
+    private boolean lockLostShown = false;
 //    private IStatusLineManager statusLineManager;
     
 	public TextEditor() {
@@ -55,6 +60,12 @@ public class TextEditor extends EditorPart implements ITextEditor {
 
 	@Override
 	public void doSave(IProgressMonitor monitor) {
+		// never overwrite the file without holding its lock
+		if (! ensureLock(true)) {
+			if (monitor != null)
+				monitor.setCanceled(true);
+			return;
+		}
 		if (monitor != null)
 			monitor.beginTask("Saving file...", 1);
 		writeFile();
@@ -82,8 +93,12 @@ public class TextEditor extends EditorPart implements ITextEditor {
 		setInput(input);
 		setPartName(input.getName());
 		
-		if (propsFile == null) 
-			propsFile = DBUtils.getPropertiesFile(file.getAbsolutePath());		
+		if (propsFile == null) {
+			// the cached properties file is shared by all sessions, the editor keeps its own copy
+			PropertiesFile cachedFile = DBUtils.getPropertiesFile(file.getAbsolutePath());
+			if (cachedFile != null)
+				propsFile = EcoreUtil.copy(cachedFile);
+		}
 //		if (statusLineManager == null)
 //			statusLineManager = site.getActionBars().getStatusLineManager();
 	}
@@ -116,6 +131,60 @@ public class TextEditor extends EditorPart implements ITextEditor {
 		firePropertyChange( PROP_DIRTY );
 	}
 	
+	// typing keeps the lock, lock again if the lease has expired in the meantime
+	private void renewLock() {
+		// typed text is kept, even if the lock can't be acquired again
+		ensureLock(false);
+	}
+	
+	/**
+	 * Makes sure that this session holds the lock of the properties file. If the lease has expired,
+	 * the lock is acquired again, unless another user holds it or has saved the file in the meantime.
+	 * Otherwise the user is told, that the changes can't be saved.
+	 * @param always true to tell the user every time, false to tell once per lost lock
+	 * @return true if the lock is held and the file may be written
+	 */
+	private boolean ensureLock(boolean always) {
+		if (propsFile == null || RBLockManager.INSTANCE.renewLease(propsFile.getId())) {
+			lockLostShown = false;
+			return true;
+		}
+		
+		String message = null;
+		User ownerOfLock = RBLockManager.INSTANCE.tryLock(propsFile.getId());
+		if (! ownerOfLock.equals(UserUtils.getUser())) {
+			message = "Your lock has expired and " + ownerOfLock.getUsername() + " has locked the file in the meantime. " +
+					"Your changes can't be saved until the file is unlocked.";
+		} else if (! isFileUnchanged()) {
+			// another user has locked and saved the file, while the lock was lost
+			RBLockManager.INSTANCE.release(propsFile.getId());
+			message = "Your lock has expired and the file has been changed by another user in the meantime. " +
+					"Your changes can't be saved, copy them and revert the file.";
+		}
+		
+		if (message == null) {
+			lockLostShown = false;
+			return true;
+		}
+		if (always || ! lockLostShown) {
+			lockLostShown = true;
+			MessageDialog.openError(getSite().getShell(), "Lock of " + file.getName() + " lost", message);
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns true if the file on disk is the same as the file, which has been read or written last.
+	 */
+	private boolean isFileUnchanged() {
+		try {
+			return FileUtils.readFileToString(file).equals(fileContent);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
 	@Override
 	public boolean isSaveAsAllowed() {
 		return true;
@@ -134,6 +203,8 @@ public class TextEditor extends EditorPart implements ITextEditor {
 				} else {
 					if (!dirty)		
 						setDirty(true);
+					else
+						renewLock();
 				}
 			}
 		});
@@ -182,7 +253,12 @@ public class TextEditor extends EditorPart implements ITextEditor {
 	private void writeFile() {
 		String content = textField.getText();		
 		try {
+			// the delta is based on the file on disk, which may differ from the text read by this editor
+			String savedContent = file.exists() ? FileUtils.readFileToString(file) : "";
 			FileUtils.writeStringToFile(file, content);
+			// publish changed keys before the lock is released, sharing editors apply them instead of reloading
+			if (propsFile != null)
+				PropertiesFileDeltaLog.INSTANCE.publish(propsFile.getId(), savedContent, content);
 			fileContent = content;
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.SWT;
@@ -51,17 +52,15 @@ public class FileOpenAction extends AbstractFileOpenAction {
 				errorMsgs.add(ERROR_MSG_ALREADY_EXISTS.replaceFirst(TOKEN_FILENAME, file.getName()));			
 			// exists bundle already
 			} else {
-				for (ResourceBundle rb : StorageUtils.getSessionRBs()) {
-					if (rb.getName().equals(bundleName)) {
-						// add to existing rb ?
-						if (MessageDialog.openConfirm(window.getShell(), "Duplicated resource bundles", 
-								"You have uploaded a properties file, which has the same bundle name as an already opened resource bundle.\n\n" +
-								"The file \""+file.getName()+"\" will be added to the existing resource bundle \""+bundleName+"\"."))
-							EditorUtils.closeEditorOfRB(rb, true);
-						else
-							copy.remove(filepath);
-						break;
-					}
+				ResourceBundle rb = StorageUtils.getResourceBundle(bundleName, true);
+				if (rb != null) {
+					// add to existing rb ?
+					if (MessageDialog.openConfirm(window.getShell(), "Duplicated resource bundles", 
+							"You have uploaded a properties file, which has the same bundle name as an already opened resource bundle.\n\n" +
+							"The file \""+file.getName()+"\" will be added to the existing resource bundle \""+bundleName+"\"."))
+						EditorUtils.closeEditorOfRB(rb, true);
+					else
+						copy.remove(filepath);
 				}
 					
 			}
@@ -88,18 +87,23 @@ public class FileOpenAction extends AbstractFileOpenAction {
 		// if user is logged in store rbs directly
 		// move rbs to user project and store them persistently to db 
 		if (UserUtils.isUserLoggedIn()) {			
+			IProject userProject = FileRAPUtils.getUserProject();
+			List<ResourceBundle> storableRBs = new ArrayList<ResourceBundle>();
 			for (ResourceBundle rb : rbs) {
 				// abort if a properties file with same name exists already
 				boolean existsPF = false;
 				for (PropertiesFile pf : rb.getPropertiesFiles()) {
-					if (FileRAPUtils.existsProjectFile(FileRAPUtils.getUserProject(), pf.getFilename())) {
+					if (FileRAPUtils.existsProjectFile(userProject, pf.getFilename())) {
 						existsPF = true;
 						break;
 					}	
 				}
 				if (! existsPF)
-					StorageUtils.storeRB(rb);
+					storableRBs.add(rb);
 			}
+			// all rbs are moved at once and saved in one transaction,
+			// if this fails, they stay temporary and are opened from the session project
+			StorageUtils.storeRBs(storableRBs);
 		} 
 		
 		// open editor(s) for resource bundle(s)
@@ -1,43 +1,227 @@
 package org.eclipselabs.tapiji.translator.handler;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.eclipse.rap.rwt.service.ServiceHandler;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
+import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+import org.eclipselabs.tapiji.translator.rap.model.user.User;
 
+/**
+ * Sends a file as attachment. The file is streamed from its channel to the response, so a
+ * download needs constant memory regardless of the file size. Supports conditional GET
+ * by entity tag (If-None-Match) and modification date (If-Modified-Since).
+ *
+ * If the parameter {@link #RESOURCE_BUNDLE_ID} is given instead of {@link #FILEPATH_ID}, the
+ * properties files of the resource bundle are zipped into the response while they are read,
+ * without a temporary file. The compression level is configured by the system property
+ * {@link #ZIP_LEVEL_PROPERTY} (0 = no compression, 9 = best compression). Only the owner of the
+ * resource bundle and the users, it is shared with, may download it.
+ */
 public class DownloadServiceHandler implements ServiceHandler {
- 
+
 	public static final String DOWNLOAD_HANDLER_ID = "downloadServiceHandler";
 	public static final String FILEPATH_ID = "filepath";
-	
+	public static final String RESOURCE_BUNDLE_ID = "rbid";
+	/** System property with the compression level of zip downloads */
+	public static final String ZIP_LEVEL_PROPERTY = "tapiji.download.zip.level";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
 	@Override
 	public void service(HttpServletRequest request, HttpServletResponse response)
 			throws IOException, ServletException {
-				// Which file to download?
-				String filepath = request.getParameter( FILEPATH_ID );
-				  
-				// Get the file content    
-				File file = new File(filepath);    
-				if (! file.exists())
-					return;
-				
-				FileInputStream fistream = new FileInputStream(file);
-				byte[] download = new byte[(int) file.length()];
-				fistream.read(download);
-				fistream.close();
-				
-				// Send the file in the response	
-				response.setContentType( "application/" + FilenameUtils.getExtension(file.getName()));
-				response.setContentLength( download.length );
-				String contentDisposition = "attachment; filename=\"" + file.getName() + "\"";
-				response.setHeader( "Content-Disposition", contentDisposition );
-				    response.getOutputStream().write(download);
-		
+		// Which file to download?
+		String filepath = request.getParameter( FILEPATH_ID );
+		String rbID = request.getParameter( RESOURCE_BUNDLE_ID );
+		if (filepath != null) {
+			sendFile(request, response, filepath);
+		} else if (rbID != null) {
+			ResourceBundle rb = null;
+			try {
+				rb = DBUtils.getResourceBundle(Long.parseLong(rbID));
+			} catch (NumberFormatException e) {
+				// invalid id, handled as not found
+			}
+			if (rb == null)
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			else if (! isAccessible(rb))
+				response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			else
+				sendZip(request, response, rb);
+		} else {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+		}
+	}
+
+	private void sendFile(HttpServletRequest request, HttpServletResponse response, String filepath)
+			throws IOException {
+		File file = new File(filepath);
+		if (! file.isFile()) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		FileInputStream fistream = new FileInputStream(file);
+		try {
+			FileChannel channel = fistream.getChannel();
+			long length = channel.size();
+			// HTTP dates have a precision of seconds
+			long lastModified = file.lastModified() / 1000 * 1000;
+			String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+			response.setHeader("ETag", etag);
+			response.setDateHeader("Last-Modified", lastModified);
+			// browser has to revalidate, files change while they are edited
+			response.setHeader("Cache-Control", "private, no-cache");
+			if (isNotModified(request, etag, lastModified)) {
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+
+			// Send the file in the response
+			response.setContentType( "application/" + FilenameUtils.getExtension(file.getName()));
+			// setContentLength() is limited to int
+			response.setHeader("Content-Length", String.valueOf(length));
+			String contentDisposition = "attachment; filename=\"" + file.getName() + "\"";
+			response.setHeader( "Content-Disposition", contentDisposition );
+			if ("HEAD".equals(request.getMethod()))
+				return;
+
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < length) {
+				long transferred = channel.transferTo(position, length - position, out);
+				// file has been truncated in the meantime
+				if (transferred <= 0)
+					break;
+				position += transferred;
+			}
+		} finally {
+			fistream.close();
+		}
+	}
+
+	/**
+	 * Checks if the user logged in this session owns the resource bundle or the resource bundle
+	 * is shared with them.
+	 */
+	private static boolean isAccessible(ResourceBundle rb) {
+		User user = UserUtils.getUser();
+		if (user == null)
+			return false;
+		return user.equals(rb.getOwner()) || rb.getSharedUsers().contains(user);
+	}
+
+	/**
+	 * Zips the properties files of a resource bundle directly into the response.
+	 */
+	private void sendZip(HttpServletRequest request, HttpServletResponse response, ResourceBundle rb)
+			throws IOException {
+		List<PropertiesFile> propertiesFiles = rb.getPropertiesFiles();
+		int level = getZipLevel();
+
+		// entity tag of the zip is derived from the files and the compression level
+		long lastModified = 0;
+		StringBuilder tag = new StringBuilder().append(level);
+		for (PropertiesFile propertiesFile : propertiesFiles) {
+			File file = new File(propertiesFile.getPath());
+			lastModified = Math.max(lastModified, file.lastModified() / 1000 * 1000);
+			tag.append('|').append(file.getPath()).append('|').append(file.length())
+				.append('|').append(file.lastModified());
+		}
+		String etag = "\"" + Integer.toHexString(tag.toString().hashCode()) + "-"
+				+ Long.toHexString(lastModified) + "\"";
+
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", lastModified);
+		response.setHeader("Cache-Control", "private, no-cache");
+		if (isNotModified(request, etag, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		// length is unknown before compressing, response is chunked
+		response.setContentType("application/zip");
+		String contentDisposition = "attachment; filename=\"" + rb.getName() + ".zip\"";
+		response.setHeader( "Content-Disposition", contentDisposition );
+		if ("HEAD".equals(request.getMethod()))
+			return;
+
+		// deflater writes small chunks, collect them before they go to the servlet stream
+		ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE));
+		zip.setLevel(level);
+		for (PropertiesFile propertiesFile : propertiesFiles) {
+			File file = new File(propertiesFile.getPath());
+			if (! file.isFile())
+				continue;
+
+			ZipEntry entry = new ZipEntry(propertiesFile.getFilename());
+			entry.setTime(file.lastModified());
+			zip.putNextEntry(entry);
+			FileInputStream in = new FileInputStream(file);
+			try {
+				IOUtils.copy(in, zip);
+			} finally {
+				in.close();
+			}
+			zip.closeEntry();
+		}
+		// completes the zip, the servlet container closes the response stream
+		zip.finish();
+		zip.flush();
 	}
-	
-}
\ No newline at end of file
+
+	private static int getZipLevel() {
+		int level = Integer.getInteger(ZIP_LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION);
+		if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+			return Deflater.DEFAULT_COMPRESSION;
+		return level;
+	}
+
+	/**
+	 * Evaluates the conditional headers of a GET request. If-None-Match takes precedence
+	 * over If-Modified-Since.
+	 * @return true if the client's copy is up to date
+	 */
+	static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				// weak comparison is sufficient for GET
+				if (tag.startsWith("W/"))
+					tag = tag.substring(2);
+				if (tag.equals("*") || tag.equals(etag))
+					return true;
+			}
+			return false;
+		}
+
+		try {
+			long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+			return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+		} catch (IllegalArgumentException e) {
+			// malformed date, send the file
+			return false;
+		}
+	}
+
+}
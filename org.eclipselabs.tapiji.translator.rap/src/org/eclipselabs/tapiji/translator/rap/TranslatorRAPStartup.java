@@ -5,7 +5,11 @@ import org.eclipse.rap.rwt.service.UISessionEvent;
 import org.eclipse.rap.rwt.service.UISessionListener;
 import org.eclipse.ui.IStartup;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.RBLockManager;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBSession;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
+import org.eclipselabs.tapiji.translator.rap.session.SessionCleanupService;
+import org.eclipselabs.tapiji.translator.rap.utils.SessionBundleRegistry;
+import org.eclipselabs.tapiji.translator.rap.utils.StorageChangeTracker;
 
 
 public class TranslatorRAPStartup implements IStartup {
@@ -14,11 +18,21 @@ public class TranslatorRAPStartup implements IStartup {
 		// initialize Teneo Hibernate DataStore
         DBUtils.initDataStore();
         
+        // delete temp projects of sessions, which have expired while the server was down
+        SessionCleanupService.INSTANCE.sessionCreated(RWT.getUISession().getId());
+        SessionCleanupService.INSTANCE.sweepOrphans();
+        
         // release locks when RAP session expires
         RWT.getUISession().addUISessionListener(new UISessionListener() {			
 			@Override
 			public void beforeDestroy(UISessionEvent event) {
 				RBLockManager.INSTANCE.releaseLocksHeldBySessionID(event.getUISession().getId());
+				StorageChangeTracker.INSTANCE.removeSession(event.getUISession().getId());
+				SessionBundleRegistry.INSTANCE.removeSession(event.getUISession().getId());
+				// delete temp project, in case the http session listener isn't registered
+				SessionCleanupService.INSTANCE.sessionDestroyed(event.getUISession().getId());
+				// close unit of work, in case the http session listener isn't registered
+				DBSession.close(event.getUISession().getHttpSession().getId());
 			}
 		});
 	}
@@ -1,12 +1,6 @@
 package org.eclipselabs.tapiji.translator.rap.dialogs;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.dialogs.IDialogConstants;
@@ -129,12 +123,9 @@ public class DownloadDialog extends Dialog {
 			downloadAllLink.addMouseListener(new MouseAdapter() {
 				@Override
 				public void mouseUp(MouseEvent e) {
-					File zipFile = createZipFile();
-					
-					if (zipFile != null) {
-						Browser browser = new Browser(getShell(), SWT.NONE);
-						browser.setUrl(createDownloadUrl(zipFile.getAbsolutePath()));
-					}
+					// zip is created by the service handler while it's downloaded
+					Browser browser = new Browser(getShell(), SWT.NONE);
+					browser.setUrl(createZipDownloadUrl(resourceBundle.getId()));
 				}
 			});		 
 			
@@ -156,46 +147,13 @@ public class DownloadDialog extends Dialog {
 		return RWT.getResponse().encodeURL(url);
 	}
 	
-	private File createZipFile() {		
-		// Create a buffer for reading the files
-		byte[] buf = new byte[1024];
-
-		String tempDir = System.getProperty("java.io.tmpdir");
-	    String zipFilename = tempDir + File.separator + resourceBundle.getName() + ".zip";
-	    
-		try {
-		    // Create the ZIP file in OS temp directory
-			
-		    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFilename));
-
-		    // Compress the files
-		    for (PropertiesFile file : resourceBundle.getPropertiesFiles()) {
-		        FileInputStream in = new FileInputStream(file.getPath());
-
-		        // Add ZIP entry to output stream.
-		        out.putNextEntry(new ZipEntry(file.getFilename()));
-
-		        // Transfer bytes from the file to the ZIP file
-		        int len;
-		        while ((len = in.read(buf)) > 0) {
-		            out.write(buf, 0, len);
-		        }
-
-		        // Complete the entry
-		        out.closeEntry();
-		        in.close();
-		    }
-
-		    // Complete the ZIP file
-		    out.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		File zipFile = new File(zipFilename);
-		if (zipFile.exists())
-			return zipFile;
-		
-		return null;
+	private String createZipDownloadUrl( long rbID ) {
+		ServiceManager manager = RWT.getServiceManager();
+		String url = manager.getServiceHandlerUrl(
+				DownloadServiceHandler.DOWNLOAD_HANDLER_ID);
+		// add resource bundle parameter to service url
+		url += "&"+ DownloadServiceHandler.RESOURCE_BUNDLE_ID + "=" + rbID;
+		return RWT.getResponse().encodeURL(url);
 	}
 	
 	private void registerDownloadServiceHandler() {
@@ -1,7 +1,8 @@
 package org.eclipselabs.tapiji.translator.rap.dialogs;
 
-import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.dialogs.IDialogConstants;
@@ -22,9 +23,11 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBUtils;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.PropertiesFileCache;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
 import org.eclipselabs.tapiji.translator.rap.model.user.User;
+import org.eclipselabs.tapiji.translator.rap.utils.StorageUtils;
 
 public class ShareDialog extends Dialog {
 	private ResourceBundle resourceBundle;
@@ -102,11 +105,15 @@ public class ShareDialog extends Dialog {
 	}
 	
     private void fillCombo(Combo combo) {
-    	List<User> sharedUsers = resourceBundle.getSharedUsers();
-    	for (User user : DBUtils.getAllRegisteredUsers()) {
+    	Set<String> excludedUsernames = new HashSet<String>();
+    	for (User user : resourceBundle.getSharedUsers())
+    		excludedUsernames.add(user.getUsername());
+    	if (resourceBundle.getOwner() != null)
+    		excludedUsernames.add(resourceBundle.getOwner().getUsername());
+    	for (String username : DBUtils.getAllUsernames()) {
     		// don't add already shared users and owner of rb
-    		if (! sharedUsers.contains(user) && ! user.equals(resourceBundle.getOwner()))
-    			combo.add(user.getUsername());
+    		if (! excludedUsernames.contains(username))
+    			combo.add(username);
     	}
     		
     }
@@ -160,12 +167,9 @@ public class ShareDialog extends Dialog {
 			}
 		}
 		
-		// save to DB
-		try {
-			resourceBundle.getOwner().eResource().save(null);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		// save to DB, cached files of the RB have to be reloaded with the changed shared users
+		if (StorageUtils.saveStorage(resourceBundle.getOwner()))
+			PropertiesFileCache.INSTANCE.invalidate(resourceBundle);
 		
 		super.okPressed();
 	}
@@ -0,0 +1,191 @@
+package org.eclipselabs.tapiji.translator.rap.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
+import org.eclipselabs.tapiji.translator.rap.utils.FileRAPUtils;
+
+/**
+ * Deletes the temporary projects of expired sessions (project name = session id) in the
+ * background. Expired sessions are queued and their projects are deleted in batches by
+ * one worker thread, every batch in one workspace operation, so many sessions expiring
+ * at once don't block the threads of the servlet container.
+ *
+ * At startup, projects of sessions, which have expired while the server wasn't running,
+ * are swept: every project, which doesn't belong to a registered user or a live session,
+ * is deleted.
+ */
+public class SessionCleanupService {
+
+	public static final SessionCleanupService INSTANCE = new SessionCleanupService();
+
+	/** Maximal number of projects deleted in one workspace operation */
+	public static final int BATCH_SIZE = 32;
+
+	/** Name of the workspace's metadata directory, which is never swept */
+	private static final String METADATA_DIRECTORY = ".metadata";
+
+	/** names of the projects waiting for deletion, guarded by this */
+	private final Set<String> pendingProjects = new LinkedHashSet<String>();
+	/** true while the worker drains the queue, guarded by this */
+	private boolean draining = false;
+	/** ids of the live sessions, their projects aren't swept */
+	private final Set<String> liveSessions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final AtomicBoolean swept = new AtomicBoolean(false);
+	private ExecutorService executor;
+
+	private final Runnable drainTask = new Runnable() {
+		@Override
+		public void run() {
+			List<String> batch;
+			while (! (batch = nextBatch()).isEmpty())
+				deleteProjects(batch);
+		}
+	};
+
+	private SessionCleanupService() {
+	}
+
+	/**
+	 * Registers a live session, its project won't be swept.
+	 * @param sessionId id of the session
+	 */
+	public void sessionCreated(String sessionId) {
+		liveSessions.add(sessionId);
+	}
+
+	/**
+	 * Queues the project of an expired session for deletion and returns immediately.
+	 * Queuing the same session twice has no effect.
+	 * @param sessionId id of the session (= project name)
+	 */
+	public synchronized void sessionDestroyed(String sessionId) {
+		liveSessions.remove(sessionId);
+		pendingProjects.add(sessionId);
+		if (! draining) {
+			draining = true;
+			getExecutor().execute(drainTask);
+		}
+	}
+
+	/**
+	 * Sweeps the projects of expired sessions in the background. Only the first call does
+	 * something, later calls (e.g. by the startup of another UI session) are ignored.
+	 * The calling session must have been registered by {@link #sessionCreated(String)}.
+	 */
+	public void sweepOrphans() {
+		if (! swept.compareAndSet(false, true))
+			return;
+
+		getExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				IWorkspaceRoot root = FileRAPUtils.getWorkspace().getRoot();
+				Set<String> projectNames = new LinkedHashSet<String>();
+				for (IProject project : root.getProjects()) {
+					if (isOrphan(project.getName()))
+						sessionDestroyed(project.getName());
+					projectNames.add(project.getName());
+				}
+
+				// directories of projects, which have been deleted from disk only, aren't known
+				// by the workspace, there is no workspace state to update
+				File[] directories = root.getLocation().toFile().listFiles();
+				if (directories == null)
+					return;
+				for (File directory : directories) {
+					String name = directory.getName();
+					if (directory.isDirectory() && ! METADATA_DIRECTORY.equals(name)
+							&& ! projectNames.contains(name) && isOrphan(name)) {
+						try {
+							FileUtils.deleteDirectory(directory);
+						} catch (IOException e) {
+							e.printStackTrace();
+						}
+					}
+				}
+			}
+		});
+	}
+
+	private boolean isOrphan(String projectName) {
+		return ! liveSessions.contains(projectName) && ! UserUtils.existsUser(projectName);
+	}
+
+	/**
+	 * Takes the next projects from the queue, marks the queue as drained if it's empty.
+	 */
+	private synchronized List<String> nextBatch() {
+		List<String> batch = new ArrayList<String>(Math.min(pendingProjects.size(), BATCH_SIZE));
+		Iterator<String> it = pendingProjects.iterator();
+		while (it.hasNext() && batch.size() < BATCH_SIZE) {
+			batch.add(it.next());
+			it.remove();
+		}
+		if (batch.isEmpty())
+			draining = false;
+		return batch;
+	}
+
+	/**
+	 * Deletes the projects with the given names, including their contents, in one workspace operation.
+	 */
+	private void deleteProjects(final List<String> projectNames) {
+		IWorkspace workspace = FileRAPUtils.getWorkspace();
+		final IWorkspaceRoot root = workspace.getRoot();
+		try {
+			workspace.run(new IWorkspaceRunnable() {
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (String projectName : projectNames) {
+						IProject project = root.getProject(projectName);
+						// never delete a user project
+						if (! project.exists() || UserUtils.existsUser(projectName))
+							continue;
+						try {
+							project.delete(true, true, null);
+						} catch (CoreException e) {
+							// delete the other projects of the batch anyway
+							e.printStackTrace();
+						}
+					}
+				}
+			}, root, IWorkspace.AVOID_UPDATE, null);
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "TapiJI session cleanup");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+}
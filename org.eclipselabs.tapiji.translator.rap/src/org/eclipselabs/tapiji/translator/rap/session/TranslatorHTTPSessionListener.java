@@ -1,25 +1,23 @@
 package org.eclipselabs.tapiji.translator.rap.session;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.Date;
 
 import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
 
-import org.apache.commons.io.FileUtils;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBSession;
 
 public class TranslatorHTTPSessionListener implements HttpSessionListener {
 
-    private static final String workspaceRelativePath = "eclipse" + File.separator + "workspace";
-	
 	@Override
 	public void sessionCreated(HttpSessionEvent se) {
 //		 HttpSession session = se.getSession();
 //	        System.out.print(new Date(System.currentTimeMillis()).toString() + " (session) Created:");
 //	        System.out.println("ID=" + session.getId() + " MaxInactiveInterval="
 //	 + session.getMaxInactiveInterval());	        
+		// the project of a live session mustn't be swept
+		SessionCleanupService.INSTANCE.sessionCreated(se.getSession().getId());
 	}
 
 	@Override
@@ -30,16 +28,10 @@ public class TranslatorHTTPSessionListener implements HttpSessionListener {
         System.out.println(new Date(System.currentTimeMillis()).toString() + " (session) Destroyed:ID=" 
         		+ session.getId());
         
-        // delete temp project (name=session id)
-		try {
-        	File tomcatWorkPath = (File) session.getServletContext().
-        			getAttribute("javax.servlet.context.tempdir");
-        	File tempProject = new File(tomcatWorkPath + File.separator + workspaceRelativePath 
-        			+ File.separator + session.getId());
-        	System.out.println("deleting " + tempProject.getAbsolutePath() + "...");
-        	FileUtils.deleteDirectory(tempProject);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+        // close unit of work (hibernate session) of this session
+        DBSession.close(session.getId());
+        
+        // delete temp project (name=session id) in the background
+        SessionCleanupService.INSTANCE.sessionDestroyed(session.getId());
 	}
 }
@@ -0,0 +1,190 @@
+package org.eclipselabs.tapiji.translator.rap.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IFileEditorInput;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.PartInitException;
+import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+import org.eclipselabs.tapiji.translator.rap.model.user.util.PropertiesFileName;
+
+/**
+ * Index of the opened editors of a workbench page by resource bundle. An editor belongs to the
+ * resource bundle of its input file, which is identified by the directory and the bundle name
+ * of the file. The index is maintained by a part listener, so looking up the editors of a
+ * resource bundle doesn't depend on the number of opened editors and locales.
+ *
+ * Every UI session has its own indexes, they must be used in the UI thread only.
+ */
+public class EditorIndex implements IPartListener2 {
+	/** Name of the UI session attribute, which holds the indexes of the session's pages */
+	private static final String ATTRIBUTE_NAME = EditorIndex.class.getName();
+
+	/** bundle key (as key) -> opened editors in the order of opening (as value) */
+	private final Map<String, List<IEditorReference>> editors = new HashMap<String, List<IEditorReference>>();
+	/** opened editor (as key) -> bundle key of the editor (as value) */
+	private final Map<IEditorReference, String> bundleKeys = new HashMap<IEditorReference, String>();
+
+	private EditorIndex(IWorkbenchPage page) {
+		for (IEditorReference editor : page.getEditorReferences())
+			add(editor);
+		page.addPartListener(this);
+	}
+
+	/**
+	 * Returns the index of a workbench page, creates it if it doesn't exist yet.
+	 * @param page a workbench page of the current UI session
+	 * @return the index of the page's editors
+	 */
+	public static EditorIndex get(IWorkbenchPage page) {
+		UISession session = RWT.getUISession();
+		@SuppressWarnings("unchecked")
+		Map<IWorkbenchPage, EditorIndex> indexes = (Map<IWorkbenchPage, EditorIndex>) session.getAttribute(ATTRIBUTE_NAME);
+		if (indexes == null) {
+			indexes = new HashMap<IWorkbenchPage, EditorIndex>();
+			session.setAttribute(ATTRIBUTE_NAME, indexes);
+		}
+
+		EditorIndex index = indexes.get(page);
+		if (index == null) {
+			index = new EditorIndex(page);
+			indexes.put(page, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the opened editors of a resource bundle.
+	 * @param rb resource bundle
+	 * @return a new list of the opened editors of the resource bundle
+	 */
+	public List<IEditorReference> getEditors(ResourceBundle rb) {
+		List<IEditorReference> rbEditors = editors.get(getBundleKey(rb));
+		if (rbEditors == null)
+			return new ArrayList<IEditorReference>();
+		return new ArrayList<IEditorReference>(rbEditors);
+	}
+
+	/**
+	 * Returns true if an editor of the resource bundle is opened.
+	 * @param rb resource bundle
+	 * @return true if the resource bundle is opened
+	 */
+	public boolean isOpened(ResourceBundle rb) {
+		return editors.containsKey(getBundleKey(rb));
+	}
+
+	private void add(IEditorReference editor) {
+		// editors of a restored page are opened after they have been indexed
+		if (bundleKeys.containsKey(editor))
+			return;
+		String path = getInputPath(editor);
+		if (path == null)
+			return;
+
+		String bundleKey = getBundleKey(path, PropertiesFileName.parse(path));
+		List<IEditorReference> rbEditors = editors.get(bundleKey);
+		if (rbEditors == null) {
+			rbEditors = new ArrayList<IEditorReference>(1);
+			editors.put(bundleKey, rbEditors);
+		}
+		rbEditors.add(editor);
+		bundleKeys.put(editor, bundleKey);
+	}
+
+	private void remove(IEditorReference editor) {
+		String bundleKey = bundleKeys.remove(editor);
+		if (bundleKey == null)
+			return;
+
+		List<IEditorReference> rbEditors = editors.get(bundleKey);
+		rbEditors.remove(editor);
+		if (rbEditors.isEmpty())
+			editors.remove(bundleKey);
+	}
+
+	/**
+	 * Returns the location of the editor's input file.
+	 * @return the location or null, if the editor has no file as input
+	 */
+	private static String getInputPath(IEditorReference editor) {
+		try {
+			IEditorInput input = editor.getEditorInput();
+			if (input instanceof IFileEditorInput && ((IFileEditorInput) input).getFile().getLocation() != null)
+				return ((IFileEditorInput) input).getFile().getLocation().toOSString();
+		} catch (PartInitException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the key of a resource bundle, which is the key of its first file.
+	 * @return the key or null, if the resource bundle has no files
+	 */
+	private static String getBundleKey(ResourceBundle rb) {
+		if (rb.getPropertiesFiles().isEmpty())
+			return null;
+		PropertiesFile file = rb.getPropertiesFiles().get(0);
+		if (file.getPath() == null)
+			return null;
+		return getBundleKey(file.getPath(), file.getParsedFilename());
+	}
+
+	/**
+	 * Returns the key of the resource bundle of a file: the directory and the bundle name
+	 */
+	private static String getBundleKey(String path, PropertiesFileName filename) {
+		return path.substring(0, path.length() - filename.getFilename().length()) + filename.getBundleName();
+	}
+
+	@Override
+	public void partOpened(IWorkbenchPartReference partRef) {
+		if (partRef instanceof IEditorReference)
+			add((IEditorReference) partRef);
+	}
+
+	@Override
+	public void partClosed(IWorkbenchPartReference partRef) {
+		if (partRef instanceof IEditorReference)
+			remove((IEditorReference) partRef);
+	}
+
+	@Override
+	public void partInputChanged(IWorkbenchPartReference partRef) {
+		if (partRef instanceof IEditorReference) {
+			remove((IEditorReference) partRef);
+			add((IEditorReference) partRef);
+		}
+	}
+
+	@Override
+	public void partActivated(IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partBroughtToTop(IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partDeactivated(IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partHidden(IWorkbenchPartReference partRef) {
+	}
+
+	@Override
+	public void partVisible(IWorkbenchPartReference partRef) {
+	}
+}
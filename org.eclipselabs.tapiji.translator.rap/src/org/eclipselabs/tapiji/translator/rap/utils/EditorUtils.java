@@ -1,6 +1,5 @@
 package org.eclipselabs.tapiji.translator.rap.utils;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.babel.core.message.internal.MessagesBundle;
@@ -16,7 +15,6 @@ import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.FileEditorInput;
 import org.eclipselabs.tapiji.translator.actions.FileOpenAction;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.RBLockManager;
-import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
 
 
@@ -126,37 +124,18 @@ public class EditorUtils {
 	 * @return True if resource bundle is opened.
 	 */
 	public static boolean isRBOpened(ResourceBundle rb) {
-		if (getOpenedEditors(rb).isEmpty())
-			return false;
-		return true;
+		return EditorIndex.get(getActivePage()).isOpened(rb);
 	}
 
 	/**
 	 * Returns a list of opened editors of a given resource bundle (ONLY in this UIThread).
-	 * Searches through all opened editor references and compares the file path of the opened
-	 * editor with the path of the locale files of resource bundle.
-	 * If a locale file of resource bundle matches the editor file, then the resource bundle is
-	 * opened and added to the return list.
+	 * The editors are looked up in the {@link EditorIndex} of the active page, which
+	 * knows the resource bundle of every opened editor by its input file.
 	 * @param rb resource bundle
 	 * @return a list of opened resource bundles
 	 */
 	public static List<IEditorReference> getOpenedEditors(ResourceBundle rb) {
-		List<IEditorReference> openedRB = new ArrayList<IEditorReference>();
-		try {
-			for (IEditorReference editor : getActivePage().getEditorReferences()) {
-				if (editor.getEditorInput() instanceof IFileEditorInput) {
-					IFileEditorInput editorInput = (IFileEditorInput) editor.getEditorInput();
-					String ifilePath = editorInput.getFile().getLocation().toOSString();
-
-					for (PropertiesFile file : rb.getPropertiesFiles())
-						if (ifilePath.equals(file.getPath()))
-								openedRB.add(editor);
-				}
-			}
-		} catch (PartInitException e) {
-			e.printStackTrace();
-		}
-		return openedRB;
+		return EditorIndex.get(getActivePage()).getEditors(rb);
 	}
 
 	/**
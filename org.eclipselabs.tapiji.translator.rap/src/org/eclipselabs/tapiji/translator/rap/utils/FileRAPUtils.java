@@ -1,20 +1,35 @@
 package org.eclipselabs.tapiji.translator.rap.utils;
 
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.rap.rwt.RWT;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+import org.eclipselabs.tapiji.translator.rap.model.user.util.PropertiesFileName;
 import org.eclipselabs.tapiji.translator.utils.FileUtils;
 
 /**
@@ -24,37 +39,127 @@ import org.eclipselabs.tapiji.translator.utils.FileUtils;
  */
 public class FileRAPUtils extends FileUtils {
 	
+	/** Number of files from which on uploaded files are copied in parallel */
+	private static final int PARALLEL_COPY_THRESHOLD = 4;
+	private static ExecutorService copyExecutor;
+	
 	/**
 	 * Creates new {@link IFile}s for given locations in a given project. Creates resource bundles 
 	 * out of these {@link IFile}s and returns them as list.
+	 * The files are copied into the project directory (in parallel, if there are many) and
+	 * added to the workspace in one workspace operation, so the workspace is locked and
+	 * resource change listeners are notified once for all files.
 	 * @param locations a string array which contains the location (path + filename) to files
 	 * @param project the project in which the files get created
 	 * @return a list of created resources bundles
 	 */
 	public static List<ResourceBundle> getResourceBundleRef(String[] locations, IProject project) {		
-		IFile file = null;
-		
-		List<IFile> createdFiles = new ArrayList<IFile>();		
+		// target file (as key) -> uploaded file (as value), existing files are skipped
+		Map<IFile, File> targets = new LinkedHashMap<IFile, File>();
 		for (String location : locations) {
 			IPath path = new Path(location);
 			
 			// Create all files of the Resource-Bundle within the project space
-			String filename = path.lastSegment();			
-			file = project.getFile(filename);
-			if (! file.exists())
-				try {
-					file.create(new FileInputStream(location), IResource.REPLACE, null);					
-					createdFiles.add(file);
-				} catch (FileNotFoundException e) {		
-					e.printStackTrace();
-				} catch (CoreException e) {
-					e.printStackTrace();
-				}			
+			IFile file = project.getFile(path.lastSegment());
+			if (! file.exists() && ! targets.containsKey(file))
+				targets.put(file, path.toFile());
+		}
+		
+		final List<IFile> createdFiles = copyFiles(targets);
+		if (createdFiles.isEmpty())
+			return new ArrayList<ResourceBundle>();
+		
+		try {
+			getWorkspace().run(new IWorkspaceRunnable() {
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (IFile file : createdFiles)
+						file.refreshLocal(IResource.DEPTH_ZERO, null);
+				}
+			}, project, IWorkspace.AVOID_UPDATE, null);
+		} catch (CoreException e) {
+			e.printStackTrace();
 		}
 		
 		return StorageUtils.createResourceBundles(createdFiles);
 	}
 	
+	/**
+	 * Copies files into the directories of their workspace files.
+	 * @param targets workspace file (as key) -> file to copy (as value)
+	 * @return the workspace files, which have been copied successfully
+	 */
+	private static List<IFile> copyFiles(Map<IFile, File> targets) {
+		List<IFile> copiedFiles = new ArrayList<IFile>();
+		if (targets.size() < PARALLEL_COPY_THRESHOLD) {
+			for (Map.Entry<IFile, File> target : targets.entrySet()) {
+				if (copyFile(target.getValue(), target.getKey()))
+					copiedFiles.add(target.getKey());
+			}
+			return copiedFiles;
+		}
+		
+		Map<IFile, Future<Boolean>> copies = new LinkedHashMap<IFile, Future<Boolean>>();
+		for (final Map.Entry<IFile, File> target : targets.entrySet()) {
+			copies.put(target.getKey(), getCopyExecutor().submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					return copyFile(target.getValue(), target.getKey());
+				}
+			}));
+		}
+		
+		for (Map.Entry<IFile, Future<Boolean>> copy : copies.entrySet()) {
+			try {
+				if (copy.getValue().get())
+					copiedFiles.add(copy.getKey());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+		return copiedFiles;
+	}
+	
+	private static boolean copyFile(File source, IFile target) {
+		File destination = target.getLocation().toFile();
+		try {
+			FileInputStream in = new FileInputStream(source);
+			try {
+				FileOutputStream out = new FileOutputStream(destination);
+				try {
+					IOUtils.copy(in, out);
+				} finally {
+					out.close();
+				}
+			} finally {
+				in.close();
+			}
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			destination.delete();
+			return false;
+		}
+	}
+	
+	private static synchronized ExecutorService getCopyExecutor() {
+		if (copyExecutor == null) {
+			copyExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), 
+					new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "TapiJI file import");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return copyExecutor;
+	}
+	
 	/**
 	 * Returns the files contained in a given project.
 	 * @param project eclipse project
@@ -97,26 +202,33 @@ public class FileRAPUtils extends FileUtils {
 	
 	/**
 	 * Returns the local of a given filename as string.
-	 * Examples (Input -> Output): "bundleName_de.properties" -> "de", "bundleName.properties" -> "".
+	 * Examples (Input -> Output): "bundleName_de.properties" -> "_de", "bundleName.properties" -> "".
 	 * @param filename name of a file
 	 * @return a string local of filename or an empty string if filename has no local.
 	 */
 	public static String getLocal(String filename) {
 		// fileName -> BUNDLENAME_LOCAL.EXT
-		String local = filename;
-		IPath path = new Path(filename);
-		String ext = path.getFileExtension();
-		
-		String bundleName = getBundleName(path);
-		// remove bundleName (-> LOCAL.EXT)
-		local = local.substring(bundleName.length()+1);
-		// default local (null) -> BUNDLENAME.EXT
-		if (local.equals(ext))
-			return "";
-		// remove file extension (-> LOCAL)
-		local = local.substring(0, local.length()-ext.length()-1);
-		
-		return "_"+local;
+		return PropertiesFileName.parse(filename).getLocaleSuffix();
+	}
+	
+	/**
+	 * Returns the bundle name of a file. Parses the filename without regular expressions,
+	 * see {@link PropertiesFileName}.
+	 * @param file path of a file
+	 * @return the bundle name
+	 */
+	public static String getBundleName(IPath file) {
+		return PropertiesFileName.parse(file.lastSegment()).getBundleName();
+	}
+	
+	/**
+	 * Returns the bundle name of a file. Parses the filename without regular expressions,
+	 * see {@link PropertiesFileName}.
+	 * @param filePath path of a file
+	 * @return the bundle name
+	 */
+	public static String getBundleName(String filePath) {
+		return PropertiesFileName.parse(filePath).getBundleName();
 	}
 	
 	/**
@@ -0,0 +1,219 @@
+package org.eclipselabs.tapiji.translator.rap.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
+import org.eclipselabs.tapiji.translator.rap.model.user.UserFactory;
+
+/**
+ * Registry of the temporary resource bundles of the session projects, keyed by bundle name.
+ * The files of a session project are scanned once, afterwards the registry is maintained
+ * by workspace resource deltas, i.e. by uploads, renames and deletes of the session's files.
+ * The bundle name of a file is parsed only when the file is added.
+ *
+ * The registry holds the files only, every lookup returns new resource bundle objects,
+ * so callers can't change the registry (e.g. by storing a temporary resource bundle).
+ */
+public class SessionBundleRegistry implements IResourceChangeListener {
+
+	public static final SessionBundleRegistry INSTANCE = new SessionBundleRegistry();
+
+	/** Temporary resource bundles of one session project */
+	private static class Bundles {
+		/** bundle name (as key) -> files of the bundle sorted by filename (as value) */
+		final Map<String, SortedMap<String, IFile>> files = new TreeMap<String, SortedMap<String, IFile>>();
+		/** filename (as key) -> bundle name (as value) */
+		final Map<String, String> bundleNames = new HashMap<String, String>();
+		/** true if the files of the project have been scanned */
+		boolean scanned;
+
+		void add(IFile ifile) {
+			String filename = ifile.getName();
+			if (bundleNames.containsKey(filename))
+				return;
+			String bundleName = FileRAPUtils.getBundleName(ifile.getFullPath());
+			// ignore .project
+			if (bundleName.equals("") || filename.equals(".project"))
+				return;
+
+			SortedMap<String, IFile> bundleFiles = files.get(bundleName);
+			if (bundleFiles == null) {
+				bundleFiles = new TreeMap<String, IFile>();
+				files.put(bundleName, bundleFiles);
+			}
+			bundleFiles.put(filename, ifile);
+			bundleNames.put(filename, bundleName);
+		}
+
+		void remove(IFile ifile) {
+			String bundleName = bundleNames.remove(ifile.getName());
+			if (bundleName == null)
+				return;
+			SortedMap<String, IFile> bundleFiles = files.get(bundleName);
+			bundleFiles.remove(ifile.getName());
+			if (bundleFiles.isEmpty())
+				files.remove(bundleName);
+		}
+	}
+
+	/** project name (as key) -> registered bundles of the project (as value) */
+	private final ConcurrentMap<String, Bundles> projects = new ConcurrentHashMap<String, Bundles>();
+	private volatile boolean registered;
+
+	private SessionBundleRegistry() {
+	}
+
+	/**
+	 * Returns all temporary resource bundles of a session project.
+	 * @param project the session project
+	 * @return a new list of new temporary resource bundles, sorted by bundle name
+	 */
+	public List<ResourceBundle> getResourceBundles(IProject project) {
+		Bundles bundles = getBundles(project);
+		List<ResourceBundle> rbs = new ArrayList<ResourceBundle>();
+		synchronized (bundles) {
+			for (Map.Entry<String, SortedMap<String, IFile>> entry : bundles.files.entrySet())
+				rbs.add(createResourceBundle(entry.getKey(), entry.getValue()));
+		}
+		return rbs;
+	}
+
+	/**
+	 * Returns the temporary resource bundle with the given name.
+	 * @param project the session project
+	 * @param bundleName name of the resource bundle
+	 * @return a new temporary resource bundle or null, if the project contains no such bundle
+	 */
+	public ResourceBundle getResourceBundle(IProject project, String bundleName) {
+		Bundles bundles = getBundles(project);
+		synchronized (bundles) {
+			SortedMap<String, IFile> bundleFiles = bundles.files.get(bundleName);
+			return bundleFiles != null ? createResourceBundle(bundleName, bundleFiles) : null;
+		}
+	}
+
+	/**
+	 * Checks if the session project contains a resource bundle with the given name.
+	 * @param project the session project
+	 * @param bundleName name of the resource bundle
+	 * @return true if the bundle exists
+	 */
+	public boolean contains(IProject project, String bundleName) {
+		Bundles bundles = getBundles(project);
+		synchronized (bundles) {
+			return bundles.files.containsKey(bundleName);
+		}
+	}
+
+	/**
+	 * Removes the bundles of a UI session from the registry.
+	 * @param sessionID id of the UI session (= name of the session project)
+	 */
+	public void removeSession(String sessionID) {
+		projects.remove(sessionID);
+	}
+
+	private Bundles getBundles(IProject project) {
+		register();
+		Bundles bundles = projects.get(project.getName());
+		if (bundles == null) {
+			Bundles newBundles = new Bundles();
+			bundles = projects.putIfAbsent(project.getName(), newBundles);
+			if (bundles == null)
+				bundles = newBundles;
+		}
+
+		// deltas, which arrive during the scan, wait and are applied afterwards
+		synchronized (bundles) {
+			if (! bundles.scanned) {
+				for (IFile ifile : FileRAPUtils.getFilesFromProject(project))
+					bundles.add(ifile);
+				bundles.scanned = true;
+			}
+		}
+		return bundles;
+	}
+
+	private static ResourceBundle createResourceBundle(String bundleName, SortedMap<String, IFile> bundleFiles) {
+		ResourceBundle rb = UserFactory.eINSTANCE.createResourceBundle();
+		rb.setName(bundleName);
+		for (IFile ifile : bundleFiles.values())
+			rb.getPropertiesFiles().add(StorageUtils.createPropertiesFile(ifile));
+		return rb;
+	}
+
+	private void register() {
+		if (registered)
+			return;
+		synchronized (this) {
+			if (! registered) {
+				FileRAPUtils.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+				registered = true;
+			}
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null || projects.isEmpty())
+			return;
+
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					IResource resource = delta.getResource();
+					switch (resource.getType()) {
+					case IResource.ROOT:
+						return true;
+					case IResource.PROJECT:
+						// removed or closed project has to be scanned again
+						if (delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+							projects.remove(resource.getName());
+							return false;
+						}
+						return projects.containsKey(resource.getName());
+					case IResource.FILE:
+						// a rename is a removal and an addition
+						if (delta.getKind() == IResourceDelta.ADDED || delta.getKind() == IResourceDelta.REMOVED)
+							changed((IFile) resource, delta.getKind() == IResourceDelta.ADDED);
+						return false;
+					default:
+						return false;
+					}
+				}
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void changed(IFile ifile, boolean added) {
+		Bundles bundles = projects.get(ifile.getProject().getName());
+		if (bundles == null)
+			return;
+		synchronized (bundles) {
+			if (added)
+				bundles.add(ifile);
+			else
+				bundles.remove(ifile);
+		}
+	}
+}
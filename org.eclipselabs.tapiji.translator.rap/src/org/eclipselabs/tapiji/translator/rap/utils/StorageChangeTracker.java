@@ -0,0 +1,150 @@
+package org.eclipselabs.tapiji.translator.rap.utils;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Tracks the files, which have been added to or removed from user projects, by workspace
+ * resource deltas. {@link StorageUtils#syncStorageWithDatabase()} uses the tracked file names
+ * to synchronize only the changed files with the database.
+ *
+ * Every UI session has its own set of changed files, which is drained by its synchronization.
+ * The first synchronization of a session (or after another user has logged in) has to scan
+ * the whole project, it starts the tracking of the project for the session.
+ */
+public class StorageChangeTracker implements IResourceChangeListener {
+
+	public static final StorageChangeTracker INSTANCE = new StorageChangeTracker();
+
+	/** Tracked changes of a project for one UI session */
+	private static class Changes {
+		final String projectName;
+		final String username;
+		/** names of added or removed files */
+		Set<String> changedFiles = new HashSet<String>();
+
+		Changes(String projectName, String username) {
+			this.projectName = projectName;
+			this.username = username;
+		}
+	}
+
+	/** UI session id (as key) -> tracked changes of the session (as value) */
+	private final ConcurrentMap<String, Changes> sessionChanges = new ConcurrentHashMap<String, Changes>();
+	private volatile boolean registered;
+
+	private StorageChangeTracker() {
+	}
+
+	/**
+	 * Returns the names of the files, which have been added to or removed from the project of the user
+	 * since the last call of the UI session, and starts tracking the next changes.
+	 * @param sessionID id of the UI session
+	 * @param project project of the user
+	 * @param username name of the logged in user, the user object may change between calls
+	 * @return names of the changed files or null, if the whole project has to be scanned
+	 */
+	public Set<String> drainChanges(String sessionID, IProject project, String username) {
+		register();
+		Changes changes = sessionChanges.get(sessionID);
+		if (changes == null || ! changes.username.equals(username) || ! changes.projectName.equals(project.getName())) {
+			// first synchronization of the session with this user, changes from now on are tracked
+			sessionChanges.put(sessionID, new Changes(project.getName(), username));
+			return null;
+		}
+
+		synchronized (changes) {
+			Set<String> changedFiles = changes.changedFiles;
+			changes.changedFiles = new HashSet<String>();
+			return changedFiles;
+		}
+	}
+
+	/**
+	 * Stops tracking changes for a UI session.
+	 * @param sessionID id of the UI session
+	 */
+	public void removeSession(String sessionID) {
+		sessionChanges.remove(sessionID);
+	}
+
+	private void register() {
+		if (registered)
+			return;
+		synchronized (this) {
+			if (! registered) {
+				FileRAPUtils.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+				registered = true;
+			}
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null || sessionChanges.isEmpty())
+			return;
+
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					IResource resource = delta.getResource();
+					switch (resource.getType()) {
+					case IResource.ROOT:
+						return true;
+					case IResource.PROJECT:
+						// removed or closed project has to be scanned again
+						if (delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+							changed(resource.getProject(), null);
+							return false;
+						}
+						return true;
+					case IResource.FILE:
+						// files are stored flat in the project, content changes don't affect the database
+						if (delta.getKind() == IResourceDelta.ADDED || delta.getKind() == IResourceDelta.REMOVED)
+							changed(resource.getProject(), (IFile) resource);
+						return false;
+					default:
+						return false;
+					}
+				}
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Records a changed file for all sessions, which track the project.
+	 * @param file the changed file, null if the whole project has changed
+	 */
+	private void changed(IProject project, IFile file) {
+		for (Map.Entry<String, Changes> entry : sessionChanges.entrySet()) {
+			Changes changes = entry.getValue();
+			if (! changes.projectName.equals(project.getName()))
+				continue;
+			if (file == null) {
+				// next synchronization of the session scans the whole project
+				sessionChanges.remove(entry.getKey(), changes);
+			} else {
+				synchronized (changes) {
+					changes.changedFiles.add(file.getName());
+				}
+			}
+		}
+	}
+}
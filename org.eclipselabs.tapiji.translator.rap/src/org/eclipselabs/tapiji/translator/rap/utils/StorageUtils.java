@@ -2,20 +2,30 @@ package org.eclipselabs.tapiji.translator.rap.utils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.rap.rwt.RWT;
 import org.eclipse.ui.IViewPart;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.PropertiesFileDeltaLog;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.DBSession;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.PropertiesFileCache;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
@@ -54,11 +64,36 @@ public class StorageUtils {
 	 * @return Returns true if the resource bundle with the given name exists already in user session storage, otherwise false.
 	 */
 	public static boolean existsTempRBName(String bundleName) {
-		for (ResourceBundle rb : getSessionRBs()) {
-			if (rb.getName().equals(bundleName))
-				return true;
+		return SessionBundleRegistry.INSTANCE.contains(FileRAPUtils.getSessionProject(), bundleName);
+	}
+	
+	/**
+	 * Persists the changes of the current session's unit of work. If the changes can't be saved,
+	 * e.g. because another session has changed the same objects in the meantime, the user is told
+	 * and the logged in user is reloaded with the current state of the database.
+	 * @param user a user of the current session's unit of work, whose new resource bundles are saved
+	 * @return true if the changes have been saved, false if they are lost
+	 */
+	public static boolean saveStorage(User user) {
+		String error;
+		try {
+			DBSession.getCurrent().save(user);
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			error = e.getMessage();
+		} catch (RuntimeException e) {
+			// hibernate reports concurrent modifications with runtime exceptions
+			e.printStackTrace();
+			error = e.getMessage();
 		}
 		
+		// continue with the current state of the database
+		UserUtils.reloadUser();
+		IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		MessageDialog.openError(window != null ? window.getShell() : null, "Storage not saved",
+				"Your changes couldn't be saved, the storage may have been changed by another user. " +
+				"Please refresh the storage and try again.\n\n" + error);
 		return false;
 	}
 	
@@ -67,11 +102,44 @@ public class StorageUtils {
 	 *  Removes resource bundles and properties files, which don't exist anymore in user project, 
 	 *  from database. Adds resource bundles and properties files, which don't exist in database, but
 	 *  on file system, to database.
+	 *  Only the files, which have been added or removed since the last synchronization of the
+	 *  UI session, are synchronized (see {@link StorageChangeTracker}). The first synchronization
+	 *  of a session scans the whole user project.
+	 *  The logged in user and its resource bundles are refreshed first, so resource bundles shared
+	 *  by other users in the meantime are visible and the changes are saved on the current state
+	 *  of the database.
 	 */
 	public static void syncStorageWithDatabase() {
-		User user = UserUtils.getUser();
+		User user = UserUtils.reloadUser();
+		if (user == null)
+			return;
+		IProject project = FileRAPUtils.getUserProject();
+		Set<String> changedFiles = StorageChangeTracker.INSTANCE.drainChanges(
+				RWT.getUISession().getId(), project, user.getUsername());
+
+		boolean saveToDB;
+		if (changedFiles == null)
+			saveToDB = syncAllFiles(user, project);
+		else if (! changedFiles.isEmpty())
+			saveToDB = syncChangedFiles(user, project, changedFiles);
+		else
+			saveToDB = false;
+		
+		if (saveToDB) {
+			// only modified objects are written by hibernate
+			saveStorage(user);
+			// files and bundles have been added or removed
+			PropertiesFileCache.INSTANCE.clear();
+		}
+	}
+	
+	/**
+	 * Synchronizes all stored properties files and all files of the user project.
+	 * @return true if the database has to be saved
+	 */
+	private static boolean syncAllFiles(User user, IProject project) {
 		List<ResourceBundle> rbs = new ArrayList<ResourceBundle>(user.getStoredRBs());
-		List<PropertiesFile> allUserFiles = new ArrayList<PropertiesFile>();
+		Set<String> storedPaths = new HashSet<String>();
 		boolean saveToDB = false;
 		
 		// delete non existing properties files from db
@@ -79,101 +147,245 @@ public class StorageUtils {
 			
 			if (rb.getPropertiesFiles() != null && ! rb.getPropertiesFiles().isEmpty()) {
 				List<PropertiesFile> propsFiles = new ArrayList<PropertiesFile>(rb.getPropertiesFiles());
-				IProject project = null;
-				try {
-					project = FileRAPUtils.getProject(rb.getOwner().getUsername());
-				} catch (CoreException e) {
-					e.printStackTrace();
-				}			
 				for (PropertiesFile file : propsFiles) {
 					if (! FileRAPUtils.existsProjectFile(project, file.getFilename())) {
 						rb.getPropertiesFiles().remove(file);
+						PropertiesFileDeltaLog.INSTANCE.remove(file.getId());
 						saveToDB = true;
 					}
 				}
 			}
 			
 			// remove empty rbs
-			if (rb.getPropertiesFiles() == null || rb.getPropertiesFiles().isEmpty()) {
-				EcoreUtil.delete(rb);
-				user.getStoredRBs().remove(rb);
-				// TODO? remove resource bundle from DB				
+			if (removeIfEmpty(user, rb))
 				saveToDB = true;
-			}							
-			allUserFiles.addAll(rb.getPropertiesFiles());
+			else
+				for (PropertiesFile file : rb.getPropertiesFiles())
+					storedPaths.add(file.getPath());
 		}
 		
 		// add existing properties files which are not in db to resource bundle
-		for (IFile ifile : FileRAPUtils.getFilesFromProject(FileRAPUtils.getUserProject())) {
-			PropertiesFile file = createPropertiesFile(ifile);
+		for (IFile ifile : FileRAPUtils.getFilesFromProject(project)) {
 			// file doesn't exists in db yet
-			if (! allUserFiles.contains(file)) {				
-				String bundleName = FileRAPUtils.getBundleName(file.getPath());
-				// find resource bundle with bundle name of new file
-				ResourceBundle rb = getResourceBundle(bundleName, false);
-				// add file to existing rb and persist
-				if (rb != null) {
-					rb.getPropertiesFiles().add(file);
+			if (! storedPaths.contains(ifile.getLocation().toOSString())) {
+				if (addToStorage(user, ifile))
 					saveToDB = true;
-				// rb doesn't exist yet -> create new rb and add file
-				} else {
-					ResourceBundle newRB = createResourceBundle(ifile);
-					if (newRB != null) {
-						user.getStoredRBs().add(newRB);
-						newRB.setOwner(user);
-						saveToDB = true;
-					}
-				}
 			}
 		}
 		
-		if (saveToDB)
-			try {
-				user.eResource().save(null);
-			} catch (IOException e) {
-				e.printStackTrace();
+		return saveToDB;
+	}
+	
+	/**
+	 * Synchronizes the given files of the user project only.
+	 * @param changedFiles names of the files, which have been added or removed
+	 * @return true if the database has to be saved
+	 */
+	private static boolean syncChangedFiles(User user, IProject project, Set<String> changedFiles) {
+		// stored files with a changed name, filename (as key) -> file (as value)
+		Map<String, PropertiesFile> storedFiles = new HashMap<String, PropertiesFile>();
+		for (ResourceBundle rb : user.getStoredRBs()) {
+			for (PropertiesFile file : rb.getPropertiesFiles()) {
+				if (changedFiles.contains(file.getFilename()))
+					storedFiles.put(file.getFilename(), file);
+			}
+		}
+		
+		boolean saveToDB = false;
+		for (String filename : changedFiles) {
+			PropertiesFile storedFile = storedFiles.get(filename);
+			boolean exists = FileRAPUtils.existsProjectFile(project, filename);
+			
+			// file has been removed -> delete from db
+			if (storedFile != null && ! exists) {
+				ResourceBundle rb = storedFile.getResourceBundle();
+				rb.getPropertiesFiles().remove(storedFile);
+				PropertiesFileDeltaLog.INSTANCE.remove(storedFile.getId());
+				removeIfEmpty(user, rb);
+				saveToDB = true;
+			// file has been added -> add to db
+			} else if (storedFile == null && exists) {
+				if (addToStorage(user, project.getFile(filename)))
+					saveToDB = true;
 			}
+		}
+		
+		return saveToDB;
+	}
+	
+	/**
+	 * Removes a stored resource bundle without properties files from its owner and the users,
+	 * it is shared with.
+	 * @param user owner of the resource bundle
+	 * @param rb a stored resource bundle
+	 * @return true if the resource bundle has been removed
+	 */
+	public static boolean removeIfEmpty(User user, ResourceBundle rb) {
+		if (rb.getPropertiesFiles() != null && ! rb.getPropertiesFiles().isEmpty())
+			return false;
+		// only the user's objects are loaded, references of the users sharing the rb are removed explicitly
+		for (User sharedUser : new ArrayList<User>(rb.getSharedUsers()))
+			sharedUser.getStoredRBs().remove(rb);
+		EcoreUtil.delete(rb);
+		user.getStoredRBs().remove(rb);
+		// TODO? remove resource bundle from DB
+		return true;
+	}
+	
+	/**
+	 * Adds a file of the user project to the resource bundle with the same bundle name, creates
+	 * a new resource bundle if it doesn't exist.
+	 * @return true if the file has been added
+	 */
+	private static boolean addToStorage(User user, IFile ifile) {
+		PropertiesFile file = createPropertiesFile(ifile);
+		String bundleName = file.getParsedFilename().getBundleName();
+		// find resource bundle with bundle name of new file
+		ResourceBundle rb = getResourceBundle(bundleName, false);
+		// add file to existing rb and persist
+		if (rb != null) {
+			rb.getPropertiesFiles().add(file);
+			return true;
+		}
+		// rb doesn't exist yet -> create new rb and add file
+		ResourceBundle newRB = createResourceBundle(ifile);
+		if (newRB != null) {
+			user.getStoredRBs().add(newRB);
+			newRB.setOwner(user);
+			return true;
+		}
+		return false;
 	}
 	
 	/**
 	 * Stores and persists a new resource bundle on file system and saves meta data in database.
 	 * Moves files from session project to user project. User must be logged in.
 	 * @param rb The new resource bundle, which gets stored.
-	 * @return the stored resource bundle
+	 * @return the stored resource bundle or null if it couldn't be stored, the resource bundle
+	 * stays temporary in this case
 	 */
 	public static ResourceBundle storeRB(ResourceBundle rb) {
-		if (! rb.isTemporary())
-			return null;
+		List<ResourceBundle> storedRBs = storeRBs(Collections.singletonList(rb));
+		return storedRBs.isEmpty() ? null : storedRBs.get(0);
+	}
+	
+	/**
+	 * Stores and persists new resource bundles on file system and saves meta data in database.
+	 * Moves the files of all resource bundles from session project to user project in one workspace 
+	 * operation and saves the resource bundles in one database transaction. User must be logged in.
+	 * If the files can't be moved or the resource bundles can't be saved, the moved files are moved 
+	 * back and all resource bundles stay temporary.
+	 * @param rbs The new resource bundles, which get stored. Resource bundles, which aren't 
+	 * temporary, are ignored.
+	 * @return the stored resource bundles, an empty list if nothing has been stored
+	 */
+	public static List<ResourceBundle> storeRBs(List<ResourceBundle> rbs) {
+		List<ResourceBundle> storedRBs = new ArrayList<ResourceBundle>();
+		List<IResource> ifiles = new ArrayList<IResource>();
+		for (ResourceBundle rb : rbs) {
+			if (! rb.isTemporary())
+				continue;
+			storedRBs.add(rb);
+			for (PropertiesFile file : rb.getPropertiesFiles())
+				ifiles.add(FileRAPUtils.getFile(file));
+		}
+		if (storedRBs.isEmpty())
+			return storedRBs;
 		
 		// move properties files to user project
-		for (PropertiesFile file : rb.getPropertiesFiles()) {
-			IFile ifile = FileRAPUtils.getFile(file);
-			IPath newPath = new Path(FileRAPUtils.getUserProject().getFullPath()+java.io.File.separator+file.getFilename());
-			try {
-				ifile.refreshLocal(IResource.DEPTH_ZERO, null);
-				ifile.move(newPath, IResource.KEEP_HISTORY, null);
-			} catch (CoreException e) {
-				e.printStackTrace();
+		IProject sessionProject = FileRAPUtils.getSessionProject();
+		IProject userProject = FileRAPUtils.getUserProject();
+		try {
+			moveFiles(ifiles, userProject);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			// move back the files, which have been moved already
+			moveBack(storedRBs, userProject, sessionProject);
+			return new ArrayList<ResourceBundle>();
+		}
+		
+		User user = UserUtils.getUser();
+		Map<PropertiesFile, String> temporaryPaths = new HashMap<PropertiesFile, String>();
+		for (ResourceBundle rb : storedRBs) {
+			for (PropertiesFile file : rb.getPropertiesFiles()) {
+				temporaryPaths.put(file, file.getPath());
+				IFile movedIFile = userProject.getFile(file.getFilename());
+				file.setPath(movedIFile.getLocation().toOSString());
 			}
 			
-			IFile movedIFile = FileRAPUtils.getUserProject().getFile(file.getFilename());
-			file.setPath(movedIFile.getLocation().toOSString());
+			// add rb to user
+			user.getStoredRBs().add(rb);
+			// set owner (-> sets rb to non temporary)
+			rb.setOwner(user);
 		}
 		
-		// add rb to user
-		User user = UserUtils.getUser();
-		user.getStoredRBs().add(rb);
-		// set owner (-> sets rb to non temporary)
-		rb.setOwner(user);
+		// persist rbs and properties files
+		if (! saveStorage(user)) {
+			// nothing has been persisted -> rbs stay temporary in the session project
+			for (ResourceBundle rb : storedRBs) {
+				user.getStoredRBs().remove(rb);
+				rb.setOwner(null);
+				// ids generated by the failed save would mark the objects as persistent
+				rb.setId(0);
+				for (PropertiesFile file : rb.getPropertiesFiles()) {
+					file.setId(0);
+					file.setPath(temporaryPaths.get(file));
+				}
+			}
+			moveBack(storedRBs, userProject, sessionProject);
+			return new ArrayList<ResourceBundle>();
+		}
+		// paths of the new files could be cached as not stored
+		for (ResourceBundle rb : storedRBs)
+			PropertiesFileCache.INSTANCE.invalidate(rb);
+		
+		return storedRBs;
+	}
+	
+	/**
+	 * Moves files to another project in one workspace operation.
+	 * @param ifiles the files, which get moved
+	 * @param targetProject the project, which the files are moved to
+	 * @throws CoreException if a file couldn't be moved
+	 */
+	private static void moveFiles(final List<IResource> ifiles, final IProject targetProject) throws CoreException {
+		final IWorkspace workspace = FileRAPUtils.getWorkspace();
+		workspace.run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (IResource ifile : ifiles)
+					ifile.refreshLocal(IResource.DEPTH_ZERO, null);
+				workspace.move(ifiles.toArray(new IResource[ifiles.size()]), targetProject.getFullPath(), 
+						IResource.KEEP_HISTORY, null);
+			}
+		}, MultiRule.combine(FileRAPUtils.getSessionProject(), FileRAPUtils.getUserProject()), 
+			IWorkspace.AVOID_UPDATE, null);
+	}
+	
+	/**
+	 * Moves the files of resource bundles, which couldn't be stored, back to the session project. 
+	 * Files, which haven't been moved, are skipped.
+	 * @param rbs the resource bundles, which couldn't be stored
+	 * @param userProject the user project
+	 * @param sessionProject the session project
+	 */
+	private static void moveBack(List<ResourceBundle> rbs, IProject userProject, IProject sessionProject) {
+		List<IResource> movedIFiles = new ArrayList<IResource>();
+		for (ResourceBundle rb : rbs) {
+			for (PropertiesFile file : rb.getPropertiesFiles()) {
+				IFile movedIFile = userProject.getFile(file.getFilename());
+				if (movedIFile.exists() && ! sessionProject.getFile(file.getFilename()).exists())
+					movedIFiles.add(movedIFile);
+			}
+		}
+		if (movedIFiles.isEmpty())
+			return;
 		
-		// persist rb and properties files
 		try {
-			user.eResource().save(null);
-		} catch (IOException e) {
+			moveFiles(movedIFiles, sessionProject);
+		} catch (CoreException e) {
 			e.printStackTrace();
 		}
-		
-		return rb;
 	}
 	
 	/**
@@ -187,27 +399,27 @@ public class StorageUtils {
 		for (PropertiesFile file : rb.getPropertiesFiles()) {
 			IFile ifile = FileRAPUtils.getFile(file);
 			ifile.exists();
-			String local = FileRAPUtils.getLocal(file.getFilename());			
-			String newFilename = newBundleName+local+"."+ifile.getFileExtension();
+			String newFilename = newBundleName + file.getParsedFilename().getLocaleSuffix()
+					+ "." + ifile.getFileExtension();
 			
 			FileRAPUtils.renameIFile(ifile, newFilename);
 			file.setFilename(newFilename);
 		}
 		
-		if (! rb.isTemporary())
-			try {
-				rb.getOwner().eResource().save(null);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		if (! rb.isTemporary()) {
+			saveStorage(rb.getOwner());
+			// cached paths have changed
+			PropertiesFileCache.INSTANCE.invalidate(rb);
+		}
 	}
 	
 	/**
 	 * Returns all resource bundles from the user session storage.
+	 * The resource bundles are looked up in the {@link SessionBundleRegistry}.
 	 * @return A list of resource bundles stored in the user session project.
 	 */
 	public static List<ResourceBundle> getSessionRBs() {
-		return createResourceBundles(FileRAPUtils.getFilesFromProject(FileRAPUtils.getSessionProject()));
+		return SessionBundleRegistry.INSTANCE.getResourceBundles(FileRAPUtils.getSessionProject());
 	}
 	
 	/**
@@ -290,14 +502,10 @@ public class StorageUtils {
 	 * @return The wanted resource bundle if it could be found, otherwise null.
 	 */
 	public static ResourceBundle getResourceBundle(String bundleName, boolean isTemporary) {
-		List<ResourceBundle> storedRBs;
-		
-		if (isTemporary) {
-			storedRBs = getSessionRBs();
-		} else {
-			storedRBs = UserUtils.getUser().getStoredRBs();
-		}
+		if (isTemporary)
+			return SessionBundleRegistry.INSTANCE.getResourceBundle(FileRAPUtils.getSessionProject(), bundleName);
 		
+		List<ResourceBundle> storedRBs = UserUtils.getUser().getStoredRBs();
 		for (ResourceBundle existingRB : storedRBs) {
 			if (existingRB.getName().equals(bundleName))
 				return existingRB;
@@ -2,12 +2,12 @@ package org.eclipselabs.tapiji.translator.views;
 
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.babel.core.message.IMessagesBundleGroup;
 import org.eclipse.babel.core.message.manager.RBManager;
@@ -16,7 +16,6 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.IMenuListener;
@@ -51,7 +50,9 @@ import org.eclipselabs.tapiji.translator.rap.dialogs.NewLocaleDialog;
 import org.eclipselabs.tapiji.translator.rap.dialogs.ShareDialog;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.IPropertiesFileLockListener;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.PFLock;
+import org.eclipselabs.tapiji.translator.rap.helpers.managers.PropertiesFileDeltaLog;
 import org.eclipselabs.tapiji.translator.rap.helpers.managers.RBLockManager;
+import org.eclipselabs.tapiji.translator.rap.helpers.utils.PropertiesFileCache;
 import org.eclipselabs.tapiji.translator.rap.helpers.utils.UserUtils;
 import org.eclipselabs.tapiji.translator.rap.model.user.PropertiesFile;
 import org.eclipselabs.tapiji.translator.rap.model.user.ResourceBundle;
@@ -77,33 +78,37 @@ public class StorageView extends ViewPart {
 
 	private IPropertiesFileLockListener pfLockListener = new IPropertiesFileLockListener() {
 		private Display display;
+		/** true if a refresh of the tree is scheduled, but hasn't run yet */
+		private final AtomicBoolean refreshScheduled = new AtomicBoolean();
 
 		private void init() {
 			display = treeViewer.getTree().getDisplay();
 		}
 
-		@Override
-		public void lockReleased(PFLock lock) {
+		// events are delivered in batches, refresh tree once per batch
+		private void scheduleRefresh() {
 			if (display == null)
 				init();
+			if (! refreshScheduled.compareAndSet(false, true))
+				return;
 			display.asyncExec(new Runnable() {
 				@Override
 				public void run() {
-					treeViewer.refresh();
+					refreshScheduled.set(false);
+					if (! treeViewer.getTree().isDisposed())
+						treeViewer.refresh();
 				}
 			});
 		}
 
+		@Override
+		public void lockReleased(PFLock lock) {
+			scheduleRefresh();
+		}
+
 		@Override
 		public void lockAcquired(PFLock lock) {
-			if (display == null)
-				init();
-			display.asyncExec(new Runnable() {
-				@Override
-				public void run() {
-					treeViewer.refresh();
-				}
-			});
+			scheduleRefresh();
 		}
 	};
 
@@ -332,7 +337,11 @@ public class StorageView extends ViewPart {
 
 			EditorUtils.closeEditorOfRB(rb, true);
 
-			StorageUtils.storeRB(rb);
+			if (StorageUtils.storeRB(rb) == null) {
+				// rb stays temporary
+				EditorUtils.openEditorOfRB(rb);
+				return;
+			}
 
 			refreshSelectedRB(rb);
 
@@ -403,6 +412,7 @@ public class StorageView extends ViewPart {
 		ResourceBundle rb = null;
 		List<PropertiesFile> deleteFiles = new ArrayList<PropertiesFile>();
 		boolean removeRB = false;
+		boolean saveFailed = false;
 
 
 		if (selectedItem instanceof ResourceBundle) {
@@ -433,7 +443,10 @@ public class StorageView extends ViewPart {
 					// remove user share relation to rb
 					currentUser.getStoredRBs().remove(rb);
 					rb.getSharedUsers().remove(currentUser);
-					currentUser.eResource().save(null);
+					if (StorageUtils.saveStorage(currentUser))
+						PropertiesFileCache.INSTANCE.invalidate(rb);
+					else
+						saveFailed = true;
 				// delete properties file
 				} else {
 					// currently not allowed for not owned RBs
@@ -448,17 +461,18 @@ public class StorageView extends ViewPart {
 
 					// remove file from resource bundle
 					rb.getPropertiesFiles().remove(file);
+					if (! rb.isTemporary())
+						PropertiesFileDeltaLog.INSTANCE.remove(file.getId());
 				}
 
 				// update database
 				if (! rb.isTemporary()) {
 					// delete rb if all locals were deleted
-					if (rb.getPropertiesFiles().isEmpty()) {
-						EcoreUtil.delete(rb);
-						ownerUser.getStoredRBs().remove(rb);
-					}
+					StorageUtils.removeIfEmpty(ownerUser, rb);
 					// update/remove rb
-					ownerUser.eResource().save(null);
+					if (! StorageUtils.saveStorage(ownerUser))
+						saveFailed = true;
+					PropertiesFileCache.INSTANCE.invalidate(rb);
                     // update storage
                 }
 
@@ -466,9 +480,7 @@ public class StorageView extends ViewPart {
 				if (msgEditor != null) {
 					// properties file is deleted -> remove message bundle
 					if (! removeRB) {
-                        String strLocale = deleteFiles.get(0).getLocale();
-                        Locale deletedLocale = strLocale != null ? new Locale(
-                                strLocale) : null;
+                        Locale deletedLocale = deleteFiles.get(0).getParsedFilename().toLocale();
 						msgEditor.getBundleGroup().removeMessagesBundle(deletedLocale);
 
                         // dispose mbg with underlying properties file resources
@@ -481,14 +493,12 @@ public class StorageView extends ViewPart {
 					}
 				}
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		} catch (CoreException e) {
 			e.printStackTrace();
 		}
 
-		// refresh
-		if (removeRB)
+		// refresh, the whole storage has been reloaded if saving failed
+		if (removeRB || saveFailed)
 			refresh();
 		else
 			refreshSelectedRB(rb);
@@ -579,11 +589,8 @@ public class StorageView extends ViewPart {
 
 			// store in db
 			if (! rb.isTemporary()) {
-				try {
-					rb.getOwner().eResource().save(null);
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+				StorageUtils.saveStorage(rb.getOwner());
+				PropertiesFileCache.INSTANCE.invalidate(rb);
 			}
 
 			// refresh msg editor if opened
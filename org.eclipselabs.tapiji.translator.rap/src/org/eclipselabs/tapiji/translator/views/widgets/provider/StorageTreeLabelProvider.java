@@ -92,19 +92,15 @@ public class StorageTreeLabelProvider extends ColumnLabelProvider {
 	
 	private boolean isUserOwnerOfPFLock(PropertiesFile pf) {
 		PFLock lock = RBLockManager.INSTANCE.getPFLock(pf.getId());
-		if (lock.isReleased() || ! UserUtils.getUser().equals(lock.getOwner()))
+		// lock doesn't exist, if the file hasn't been locked recently
+		if (lock == null || lock.isReleased() || ! UserUtils.getUser().equals(lock.getOwner()))
 			return false;
 		return true;
 	}
 	
 	private boolean isUserOwnerOfAllPFLocks(ResourceBundle rb) {
-		if (UserUtils.isUserLoggedIn()) {
-			for (PropertiesFile pf : rb.getPropertiesFiles()) {				
-				if (RBLockManager.INSTANCE.isPFLocked(pf.getId()) && ! isUserOwnerOfPFLock(pf))
-					return false;
-			}
-			return true;
-		}
+		if (UserUtils.isUserLoggedIn())
+			return RBLockManager.INSTANCE.isOwnerOfRBLock(UserUtils.getUser(), rb);
 		
 		return false;		
 	}
@@ -27,6 +27,7 @@ import org.eclipse.babel.editor.widgets.suggestion.provider.ISuggestionProviderC
 import org.eclipse.babel.editor.widgets.suggestion.provider.StringConfigurationSetting;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Display;
+import org.eclipselabs.tapiji.translator.utils.Tokenizer;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -207,6 +208,7 @@ class XMLContentHandler extends DefaultHandler {
 	private String longestMatching = "";
 	private String bestSuggestion = "";
 	private String suggestion = "";
+	private final Tokenizer tokenizer = new Tokenizer(Tokenizer.BLANKS);
 
 	/**
 	 * @param original
@@ -285,20 +287,36 @@ class XMLContentHandler extends DefaultHandler {
 		}
 	}
 
+	/**
+	 * Checks whether the words of the source, which occur in the substring,
+	 * make up the complete substring.
+	 */
 	private boolean contains(String source, String substring) {
-		String[] originalWords = source.split(" ");
-		StringBuilder sb = new StringBuilder();
+		Tokenizer words = tokenizer.reset(source);
+		int position = 0;
+		boolean first = true;
 
-		for (String word : originalWords) {
-			if (substring.contains(word)) {
-				sb.append(word + " ");
+		while (words.next()) {
+			if (!words.tokenOccursIn(substring)) {
+				continue;
 			}
-		}
 
-		if (substring.equals(sb.toString().trim())) {
-			return true;
+			if (!first) {
+				if (position >= substring.length()
+						|| substring.charAt(position) != ' ') {
+					return false;
+				}
+				position++;
+			}
+			if (!Tokenizer.regionMatches(substring, position, source,
+					words.start(), words.length(), false)) {
+				return false;
+			}
+			position += words.length();
+			first = false;
 		}
-		return false;
+
+		return position == substring.length();
 	}
 
 	/**
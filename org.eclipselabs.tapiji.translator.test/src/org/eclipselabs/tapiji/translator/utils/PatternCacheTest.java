@@ -0,0 +1,51 @@
+package org.eclipselabs.tapiji.translator.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class PatternCacheTest {
+
+	/** Compiles enough other patterns to evict every pattern, which isn't used meanwhile */
+	private static void fillCache(String prefix, int count) {
+		for (int i = 0; i < count; i++)
+			PatternCache.getPattern(prefix + i);
+	}
+
+	@Test
+	public void testGetPatternIsCached() {
+		Pattern pattern = PatternCache.getPattern("[a-z]+_[A-Z]{2}");
+		assertEquals("[a-z]+_[A-Z]{2}", pattern.pattern());
+		assertSame(pattern, PatternCache.getPattern("[a-z]+_[A-Z]{2}"));
+	}
+
+	@Test
+	public void testMatches() {
+		assertTrue(PatternCache.matches("[a-z]+_[A-Z]{2}", "de_AT"));
+		assertFalse(PatternCache.matches("[a-z]+_[A-Z]{2}", "de_AT_Wien"));
+		assertTrue(PatternCache.matches(".*gloss.*", new StringBuilder("a glossary")));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPatternIsEvicted() {
+		Pattern pattern = PatternCache.getPattern("evicted");
+		fillCache("evicted", PatternCache.CACHE_SIZE);
+
+		Pattern recompiled = PatternCache.getPattern("evicted");
+		assertNotSame(pattern, recompiled);
+		assertEquals(pattern.pattern(), recompiled.pattern());
+	}
+
+	@Test
+	public void testRecentlyUsedPatternIsKept() {
+		Pattern pattern = PatternCache.getPattern("kept");
+		fillCache("kept", PatternCache.CACHE_SIZE - 1);
+		// access moves the pattern to the end of the eviction order
+		assertSame(pattern, PatternCache.getPattern("kept"));
+		fillCache("keptAgain", PatternCache.CACHE_SIZE - 1);
+
+		assertSame(pattern, PatternCache.getPattern("kept"));
+	}
+}
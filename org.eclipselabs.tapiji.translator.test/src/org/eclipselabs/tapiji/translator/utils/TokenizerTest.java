@@ -0,0 +1,118 @@
+package org.eclipselabs.tapiji.translator.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TokenizerTest {
+
+	private static List<String> tokens(Tokenizer tokenizer) {
+		List<String> tokens = new ArrayList<String>();
+		while (tokenizer.next())
+			tokens.add(tokenizer.token());
+		return tokens;
+	}
+
+	@Test
+	public void testWords() {
+		assertEquals(Arrays.asList("Hello", "world", "foo", "bar"),
+				tokens(Tokenizer.words("  Hello, world!\tfoo-bar.")));
+		assertEquals(Arrays.asList("don", "t"), tokens(Tokenizer.words("don't")));
+	}
+
+	@Test
+	public void testBlankSeparated() {
+		assertEquals(Arrays.asList("Hello,", "world!\tfoo-bar."),
+				tokens(Tokenizer.blankSeparated("  Hello,  world!\tfoo-bar. ")));
+	}
+
+	@Test
+	public void testNoTokens() {
+		assertTrue(tokens(Tokenizer.words("")).isEmpty());
+		assertTrue(tokens(Tokenizer.words(" ,.;\n")).isEmpty());
+		assertTrue(tokens(Tokenizer.blankSeparated("   ")).isEmpty());
+		assertFalse(new Tokenizer(Tokenizer.WORDS).next());
+
+		Tokenizer tokenizer = Tokenizer.words("...");
+		assertFalse(tokenizer.next());
+		assertEquals(-1, tokenizer.start());
+		assertEquals(-1, tokenizer.end());
+	}
+
+	@Test
+	public void testPositions() {
+		String text = "ab, cde";
+		Tokenizer tokenizer = Tokenizer.words(text);
+		assertTrue(tokenizer.next());
+		assertEquals(0, tokenizer.start());
+		assertEquals(2, tokenizer.end());
+		assertTrue(tokenizer.next());
+		assertEquals(4, tokenizer.start());
+		assertEquals(7, tokenizer.end());
+		assertEquals(3, tokenizer.length());
+		assertFalse(tokenizer.next());
+		// stays at the end
+		assertFalse(tokenizer.next());
+	}
+
+	@Test
+	public void testReset() {
+		Tokenizer tokenizer = Tokenizer.words("one two");
+		assertTrue(tokenizer.next());
+		assertEquals(Arrays.asList("three", "four"), tokens(tokenizer.reset("three four")));
+		assertEquals(Arrays.asList("five"), tokens(tokenizer.reset(new StringBuilder("five"))));
+	}
+
+	@Test
+	public void testTokenEquals() {
+		Tokenizer tokenizer = Tokenizer.words("The glossary");
+		assertTrue(tokenizer.next());
+		assertTrue(tokenizer.tokenEquals("The", false));
+		assertFalse(tokenizer.tokenEquals("the", false));
+		assertTrue(tokenizer.tokenEquals("the", true));
+		assertFalse(tokenizer.tokenEquals("Th", true));
+		assertFalse(tokenizer.tokenEquals("Then", true));
+	}
+
+	@Test
+	public void testTokenOccursIn() {
+		Tokenizer tokenizer = Tokenizer.words("sort glossary");
+		assertTrue(tokenizer.next());
+		assertTrue(tokenizer.tokenOccursIn("unsorted"));
+		assertFalse(tokenizer.tokenOccursIn("Sorted"));
+		assertTrue(tokenizer.next());
+		assertFalse(tokenizer.tokenOccursIn("gloss"));
+	}
+
+	@Test
+	public void testDelimitersMatchWordDelimiterPattern() {
+		// the tokenizer must split like the precompiled pattern
+		for (char c = 0; c < 128; c++) {
+			boolean isDelimiter = Tokenizer.isWhitespace(c) || Tokenizer.isPunctuation(c);
+			assertEquals("character " + (int) c, isDelimiter,
+					Tokenizer.WORD_DELIMITER.matcher(String.valueOf(c)).matches());
+		}
+	}
+
+	@Test
+	public void testRegionMatches() {
+		assertTrue(Tokenizer.regionMatches("Glossary", 1, "xLOSx", 1, 3, true));
+		assertFalse(Tokenizer.regionMatches("Glossary", 1, "xLOSx", 1, 3, false));
+		// out of bounds
+		assertFalse(Tokenizer.regionMatches("Glossary", 6, "xaryx", 1, 3, false));
+		assertFalse(Tokenizer.regionMatches("Glossary", -1, "Glossary", 0, 3, false));
+		assertFalse(Tokenizer.regionMatches("Glossary", 0, "Glo", 1, 3, false));
+	}
+
+	@Test
+	public void testIndexOf() {
+		assertEquals(2, Tokenizer.indexOf("a bcd bc", "xbcx", 1, 3, 0));
+		assertEquals(6, Tokenizer.indexOf("a bcd bc", "xbcx", 1, 3, 3));
+		assertEquals(-1, Tokenizer.indexOf("a bcd bc", "xbcx", 1, 3, 7));
+		assertEquals(-1, Tokenizer.indexOf("a", "xbcx", 1, 3, 0));
+	}
+}
@@ -0,0 +1,161 @@
+package org.eclipselabs.tapiji.translator.views.widgets.sorter;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.eclipselabs.tapiji.translator.model.Term;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GlossarySortEngineTest {
+
+	private static final String LOCALE = "en";
+
+	private GlossarySortEngine engine;
+
+	@Before
+	public void setUp() throws Exception {
+		engine = new GlossarySortEngine();
+	}
+
+	/**
+	 * Creates a term with one translation, the original position is kept as info of the term.
+	 */
+	private static Term createTerm(String value, int position) {
+		Term term = new Term();
+		if (value != null)
+			term.getTranslation(LOCALE).value = value;
+		term.setInfo(position);
+		return term;
+	}
+
+	private static Object[] createTerms(String... values) {
+		Object[] terms = new Object[values.length];
+		for (int i = 0; i < values.length; i++)
+			terms[i] = createTerm(values[i], i);
+		return terms;
+	}
+
+	private static int[] positions(Object[] terms) {
+		int[] positions = new int[terms.length];
+		for (int i = 0; i < terms.length; i++)
+			positions[i] = terms[i] instanceof Term ? (Integer) ((Term) terms[i]).getInfo() : -1;
+		return positions;
+	}
+
+	@Test
+	public void testSortAscending() {
+		Object[] terms = createTerms("delta", "alpha", "charlie", "bravo");
+		engine.sort(terms, LOCALE, false);
+		assertArrayEquals(new int[] { 1, 3, 2, 0 }, positions(terms));
+	}
+
+	@Test
+	public void testSortDescending() {
+		Object[] terms = createTerms("delta", "alpha", "charlie", "bravo");
+		engine.sort(terms, LOCALE, true);
+		assertArrayEquals(new int[] { 0, 2, 3, 1 }, positions(terms));
+	}
+
+	@Test
+	public void testSortIsStable() {
+		// more elements than sorted by insertion sort, so the ranges get merged
+		Object[] terms = createTerms("b", "a", "b", "a", "c", "b", "a", "c", "a", "b", "c", "a");
+		engine.sort(terms, LOCALE, false);
+		assertArrayEquals(new int[] { 1, 3, 6, 8, 11, 0, 2, 5, 9, 4, 7, 10 }, positions(terms));
+
+		terms = createTerms("b", "a", "b", "a", "c", "b", "a", "c", "a", "b", "c", "a");
+		engine.sort(terms, LOCALE, true);
+		assertArrayEquals(new int[] { 4, 7, 10, 0, 2, 5, 9, 1, 3, 6, 8, 11 }, positions(terms));
+	}
+
+	@Test
+	public void testMissingTranslationsAndOtherElements() {
+		Object[] elements = { createTerm("b", 0), "no term", createTerm(null, 2), createTerm("a", 3) };
+		// a missing translation counts as empty string
+		engine.sort(elements, LOCALE, false);
+		assertArrayEquals(new int[] { 2, 3, 0, -1 }, positions(elements));
+
+		// elements, which are no terms, stay at the end
+		engine.sort(elements, LOCALE, true);
+		assertArrayEquals(new int[] { 0, 3, 2, -1 }, positions(elements));
+	}
+
+	@Test
+	public void testSortSmallArrays() {
+		Object[] terms = new Object[0];
+		engine.sort(terms, LOCALE, false);
+
+		terms = createTerms("a");
+		engine.sort(terms, LOCALE, false);
+		assertArrayEquals(new int[] { 0 }, positions(terms));
+	}
+
+	@Test
+	public void testInvalidate() {
+		Term alpha = createTerm("alpha", 0);
+		Term bravo = createTerm("bravo", 1);
+		Object[] terms = { bravo, alpha };
+		engine.sort(terms, LOCALE, false);
+		assertArrayEquals(new Object[] { alpha, bravo }, terms);
+
+		// the cached key is used until the term is invalidated
+		alpha.getTranslation(LOCALE).value = "charlie";
+		engine.sort(terms, LOCALE, false);
+		assertArrayEquals(new Object[] { alpha, bravo }, terms);
+
+		engine.invalidate(alpha);
+		engine.sort(terms, LOCALE, false);
+		assertArrayEquals(new Object[] { bravo, alpha }, terms);
+	}
+
+	@Test
+	public void testParallelSort() {
+		// the index array is sorted in parallel, if there are several processors
+		int n = GlossarySortEngine.PARALLEL_THRESHOLD + 1234;
+		Random random = new Random(42);
+		Object[] terms = new Object[n];
+		for (int i = 0; i < n; i++)
+			terms[i] = createTerm(String.format("%03d", random.nextInt(500)), i);
+
+		for (boolean descending : new boolean[] { false, true }) {
+			engine.sort(terms, LOCALE, descending);
+
+			boolean[] found = new boolean[n];
+			for (int i = 0; i < n; i++) {
+				int position = (Integer) ((Term) terms[i]).getInfo();
+				assertFalse("duplicate term " + position, found[position]);
+				found[position] = true;
+				if (i == 0)
+					continue;
+
+				int order = engine.compare((Term) terms[i - 1], (Term) terms[i], LOCALE);
+				if (descending)
+					order = -order;
+				assertTrue("wrong order at " + i, order <= 0);
+			}
+
+			// restore the original order for the next run
+			Object[] original = new Object[n];
+			for (Object term : terms)
+				original[(Integer) ((Term) term).getInfo()] = term;
+			terms = original;
+		}
+	}
+
+	@Test
+	public void testParallelSortIsStable() {
+		int n = GlossarySortEngine.PARALLEL_THRESHOLD * 2;
+		Object[] terms = new Object[n];
+		for (int i = 0; i < n; i++)
+			terms[i] = createTerm(i % 2 == 0 ? "even" : "odd", i);
+
+		engine.sort(terms, LOCALE, false);
+		int[] positions = positions(terms);
+		for (int i = 0; i < n / 2; i++) {
+			assertEquals(2 * i, positions[i]);
+			assertEquals(2 * i + 1, positions[n / 2 + i]);
+		}
+	}
+}
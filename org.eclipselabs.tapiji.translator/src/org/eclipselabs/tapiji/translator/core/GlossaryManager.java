@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,7 +54,12 @@ public class GlossaryManager {
 
 	OutputStream fout = new FileOutputStream(file.getAbsolutePath());
 	OutputStream bout = new BufferedOutputStream(fout);
-	marshaller.marshal(glossary, new OutputStreamWriter(bout, "UTF-16"));
+	Writer writer = new OutputStreamWriter(bout, "UTF-16");
+	try {
+	    marshaller.marshal(glossary, writer);
+	} finally {
+	    writer.close();
+	}
     }
 
     public void setGlossary(Glossary glossary) {
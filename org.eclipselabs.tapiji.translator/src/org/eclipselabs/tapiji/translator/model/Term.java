@@ -70,10 +70,9 @@ public class Term implements Serializable {
     }
 
     public Translation getTranslation(String language) {
-	for (Translation translation : translations) {
-	    if (translation.id.equalsIgnoreCase(language))
-		return translation;
-	}
+	Translation translation = findTranslation(language);
+	if (translation != null)
+	    return translation;
 
 	Translation newTranslation = new Translation();
 	newTranslation.id = language;
@@ -82,6 +81,22 @@ public class Term implements Serializable {
 	return newTranslation;
     }
 
+    /**
+     * Looks up the translation of the given language without creating a new
+     * one if the term has not been translated yet.
+     * 
+     * @param language
+     *            the locale id of the translation
+     * @return the translation or <code>null</code> if none exists
+     */
+    public Translation findTranslation(String language) {
+	for (Translation translation : translations) {
+	    if (translation.id.equalsIgnoreCase(language))
+		return translation;
+	}
+	return null;
+    }
+
     public boolean removeTerm(Term elem) {
 	boolean hasFound = false;
 	for (Term subTerm : subTerms) {
@@ -11,6 +11,8 @@
 package org.eclipselabs.tapiji.translator.utils;
 
 import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -35,6 +37,13 @@ public class FileUtils {
 	        + TOKEN_BUNDLE_NAME + ")" + "((_[a-z]{2,3})|(_[a-z]{2,3}_[A-Z]{2})"
 	        + "|(_[a-z]{2,3}_[A-Z]{2}_\\w*))?(\\." + TOKEN_FILE_EXTENSION
 	        + ")$";
+	/**
+	 * Precompiled regex to split a filename into bundle name (group 1), locale
+	 * (group 2) and extension (group 6).
+	 */
+	private static final Pattern PROPERTIES_FILE_NAME = Pattern
+	        .compile("^(.*?)((_[a-z]{2,3})|(_[a-z]{2,3}_[A-Z]{2})"
+	                + "|(_[a-z]{2,3}_[A-Z]{2}_\\w*))?(\\.[^.]*)$");
 
 	/** Project name for external resource bundles */
 	public static final String EXTERNAL_RB_PROJECT_NAME = "ExternalResourceBundles";
@@ -82,7 +91,8 @@ public class FileUtils {
 		 * Create all files of the Resource-Bundle within the project space and
 		 * link them to the original file
 		 */
-		String regex = getPropertiesFileRegEx(path);
+		String bundleName = getBundleName(path);
+		String extension = "." + path.getFileExtension();
 		String projPathName = toProjectRelativePathName(path);
 		IProject project = getProject(projectName);
 		IFile file = project.getFile(projPathName);
@@ -97,7 +107,7 @@ public class FileUtils {
 				continue;
 
 			IPath newFilePath = new Path(fo.getAbsolutePath());
-			if (fo.getName().matches(regex)
+			if (isPropertiesFileOf(fo.getName(), bundleName, extension)
 			        && !path.toFile().getName()
 			                .equals(newFilePath.toFile().getName())) {
 				IFile newFile = project
@@ -120,18 +130,33 @@ public class FileUtils {
 
 	protected static String getPropertiesFileRegEx(IPath file) {
 		String bundleName = getBundleName(file);
-		return PROPERTIES_FILE_REGEX
-		        .replaceFirst(TOKEN_BUNDLE_NAME, bundleName).replaceFirst(
-		                TOKEN_FILE_EXTENSION, file.getFileExtension());
+		return PROPERTIES_FILE_REGEX.replace(TOKEN_BUNDLE_NAME, bundleName)
+		        .replace(TOKEN_FILE_EXTENSION, file.getFileExtension());
 	}
 
 	public static String getBundleName(IPath file) {
-		String name = file.toFile().getName();
-		String regex = "^(.*?)" //$NON-NLS-1$
-		        + "((_[a-z]{2,3})|(_[a-z]{2,3}_[A-Z]{2})"
-		        + "|(_[a-z]{2,3}_[A-Z]{2}_\\w*))?(\\."
-		        + file.getFileExtension() + ")$";
-		return name.replaceFirst(regex, "$1");
+		Matcher matcher = PROPERTIES_FILE_NAME.matcher(file.lastSegment());
+		// a filename without extension is the bundle name
+		return matcher.matches() ? matcher.group(1) : file.lastSegment();
+	}
+
+	/**
+	 * Checks if a filename has the given bundle name and extension.
+	 * 
+	 * @param filename
+	 *            name of a file
+	 * @param bundleName
+	 *            a bundle name
+	 * @param extension
+	 *            a file extension including the dot
+	 */
+	protected static boolean isPropertiesFileOf(String filename,
+	        String bundleName, String extension) {
+		if (!filename.startsWith(bundleName) || !filename.endsWith(extension))
+			return false;
+		Matcher matcher = PROPERTIES_FILE_NAME.matcher(filename);
+		return matcher.matches() && matcher.group(1).equals(bundleName)
+		        && matcher.group(6).equals(extension);
 	}
 	
 	public static String getBundleName(String filePath) {
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Caches compiled regular expressions. Only the recently used patterns are
+ * kept. Thread safe.
+ */
+public class PatternCache {
+
+    /** Maximal number of cached patterns */
+    public static final int CACHE_SIZE = 64;
+
+    private static final Map<String, Pattern> patterns = new LinkedHashMap<String, Pattern>(
+	    16, .75f, true) {
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+	    return size() > CACHE_SIZE;
+	}
+    };
+
+    private PatternCache() {
+    }
+
+    /**
+     * Returns the compiled pattern of a regular expression. Recently used
+     * patterns are cached.
+     */
+    public static Pattern getPattern(String regex) {
+	synchronized (patterns) {
+	    Pattern pattern = patterns.get(regex);
+	    if (pattern == null) {
+		pattern = Pattern.compile(regex);
+		patterns.put(regex, pattern);
+	    }
+	    return pattern;
+	}
+    }
+
+    /**
+     * Same as <code>input.matches(regex)</code>, but doesn't compile the
+     * pattern again.
+     */
+    public static boolean matches(String regex, CharSequence input) {
+	return getPattern(regex).matcher(input).matches();
+    }
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Splits texts into tokens without creating intermediate strings.
+ *
+ * A token iterator is reusable, but not thread safe:
+ *
+ * <pre>
+ * Tokenizer tokens = Tokenizer.words(text);
+ * while (tokens.next())
+ *     doSomething(text, tokens.start(), tokens.end());
+ * </pre>
+ */
+public class Tokenizer {
+
+    /** Words are separated by whitespace and (ASCII) punctuation characters */
+    public static final int WORDS = 0;
+
+    /** Words are separated by blanks only */
+    public static final int BLANKS = 1;
+
+    /** Same separators as {@link #WORDS}, precompiled for {@link Pattern#split} */
+    public static final Pattern WORD_DELIMITER = Pattern
+	    .compile("[\\s\\p{Punct}]+");
+
+    private final int mode;
+    private CharSequence text;
+    private int position;
+    private int start;
+    private int end;
+
+    public Tokenizer(int mode) {
+	this.mode = mode;
+    }
+
+    /**
+     * Creates an iterator over the words of the text, see {@link #WORDS}.
+     */
+    public static Tokenizer words(CharSequence text) {
+	return new Tokenizer(WORDS).reset(text);
+    }
+
+    /**
+     * Creates an iterator over the blank separated parts of the text, see
+     * {@link #BLANKS}.
+     */
+    public static Tokenizer blankSeparated(CharSequence text) {
+	return new Tokenizer(BLANKS).reset(text);
+    }
+
+    /**
+     * Restarts the iteration on another text.
+     *
+     * @return this tokenizer
+     */
+    public Tokenizer reset(CharSequence text) {
+	this.text = text;
+	this.position = 0;
+	this.start = -1;
+	this.end = -1;
+	return this;
+    }
+
+    /**
+     * Moves to the next token. Empty tokens are skipped.
+     *
+     * @return <code>false</code> if there are no more tokens
+     */
+    public boolean next() {
+	if (text == null)
+	    return false;
+
+	int length = text.length();
+	int i = position;
+	while (i < length && isDelimiter(text.charAt(i)))
+	    i++;
+	if (i == length) {
+	    position = length;
+	    start = end = -1;
+	    return false;
+	}
+
+	start = i;
+	while (i < length && !isDelimiter(text.charAt(i)))
+	    i++;
+	end = i;
+	position = i;
+	return true;
+    }
+
+    /** Start index (inclusive) of the current token */
+    public int start() {
+	return start;
+    }
+
+    /** End index (exclusive) of the current token */
+    public int end() {
+	return end;
+    }
+
+    public int length() {
+	return end - start;
+    }
+
+    /**
+     * Returns the current token as string. This is the only method that
+     * allocates.
+     */
+    public String token() {
+	return text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Checks whether the current token equals the given string.
+     */
+    public boolean tokenEquals(String s, boolean ignoreCase) {
+	return length() == s.length()
+		&& regionMatches(s, 0, text, start, length(), ignoreCase);
+    }
+
+    /**
+     * Checks whether the current token occurs in the given string.
+     */
+    public boolean tokenOccursIn(String s) {
+	return indexOf(s, text, start, end, 0) >= 0;
+    }
+
+    private boolean isDelimiter(char c) {
+	if (mode == BLANKS)
+	    return c == ' ';
+	return isWhitespace(c) || isPunctuation(c);
+    }
+
+    /**
+     * Whitespace as in the regex class <code>\s</code>.
+     */
+    public static boolean isWhitespace(char c) {
+	return c == ' ' || c == '\t' || c == '\n' || c == '\013'
+		|| c == '\f' || c == '\r';
+    }
+
+    /**
+     * Punctuation as in the regex class <code>\p{Punct}</code>, i.e. one of
+     * {@code !"#$%&'()*+,-./:;<=>?@[\]^_`{|}~}.
+     */
+    public static boolean isPunctuation(char c) {
+	return (c >= '!' && c <= '/') || (c >= ':' && c <= '@')
+		|| (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+
+    /**
+     * Compares a region of a string with a region of a character sequence.
+     */
+    public static boolean regionMatches(String s, int offset,
+	    CharSequence other, int otherOffset, int length, boolean ignoreCase) {
+	if (offset < 0 || otherOffset < 0 || offset + length > s.length()
+		|| otherOffset + length > other.length())
+	    return false;
+
+	for (int i = 0; i < length; i++) {
+	    char c1 = s.charAt(offset + i);
+	    char c2 = other.charAt(otherOffset + i);
+	    if (c1 == c2)
+		continue;
+	    if (!ignoreCase)
+		return false;
+
+	    char u1 = Character.toUpperCase(c1);
+	    char u2 = Character.toUpperCase(c2);
+	    if (u1 != u2
+		    && Character.toLowerCase(u1) != Character.toLowerCase(u2))
+		return false;
+	}
+	return true;
+    }
+
+    /**
+     * Finds a region of a character sequence within a string.
+     *
+     * @return the index of the first occurrence at or after
+     *         <code>fromIndex</code>, or -1
+     */
+    public static int indexOf(String s, CharSequence other, int otherStart,
+	    int otherEnd, int fromIndex) {
+	int length = otherEnd - otherStart;
+	int last = s.length() - length;
+	for (int i = Math.max(fromIndex, 0); i <= last; i++) {
+	    if (regionMatches(s, i, other, otherStart, length, false))
+		return i;
+	}
+	return -1;
+    }
+}
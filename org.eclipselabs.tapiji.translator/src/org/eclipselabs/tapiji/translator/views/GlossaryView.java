@@ -235,7 +235,7 @@ public class GlossaryView extends ViewPart implements ILoadGlossaryListener {
 			                ((AbstractGlossaryLabelProvider) treeViewer.getViewer()
 			                        .getLabelProvider()));
 
-		treeViewer = new GlossaryWidget(getSite(), parent, SWT.NONE,
+		treeViewer = new GlossaryWidget(getSite(), parent, SWT.VIRTUAL,
 		        glossary != null ? glossary : null,
 		        viewState != null ? viewState.getReferenceLanguage() : null,
 		        viewState != null ? viewState.getDisplayLanguages() : null);
@@ -58,10 +58,12 @@ import org.eclipselabs.tapiji.translator.compat.SwtRapCompatibilitySWT;
 import org.eclipselabs.tapiji.translator.views.widgets.dnd.GlossaryDragSource;
 import org.eclipselabs.tapiji.translator.views.widgets.dnd.GlossaryDropTarget;
 import org.eclipselabs.tapiji.translator.views.widgets.dnd.TermTransfer;
+import org.eclipselabs.tapiji.translator.views.widgets.filter.CrossReferenceIndex;
 import org.eclipselabs.tapiji.translator.views.widgets.filter.ExactMatcher;
 import org.eclipselabs.tapiji.translator.views.widgets.filter.FuzzyMatcher;
 import org.eclipselabs.tapiji.translator.views.widgets.filter.SelectiveMatcher;
 import org.eclipselabs.tapiji.translator.views.widgets.provider.GlossaryContentProvider;
+import org.eclipselabs.tapiji.translator.views.widgets.provider.GlossaryLazyContentProvider;
 import org.eclipselabs.tapiji.translator.views.widgets.provider.AbstractGlossaryLabelProvider;
 import org.eclipselabs.tapiji.translator.views.widgets.sorter.GlossaryEntrySorter;
 import org.eclipselabs.tapiji.translator.views.widgets.sorter.SortInfo;
@@ -73,6 +75,7 @@ public class GlossaryWidget extends Composite implements
 	private final int DESCRIPTION_COLUMN_WEIGHT = 1;
 
 	private boolean editable;
+	private boolean virtual;
 
 	private IWorkbenchPartSite site;
 	private TreeColumnLayout basicLayout;
@@ -95,6 +98,7 @@ public class GlossaryWidget extends Composite implements
 
 	/*** MATCHER ***/
 	ExactMatcher matcher;
+	CrossReferenceIndex crossRefIndex;
 
 	/*** SORTER ***/
 	GlossaryEntrySorter sorter;
@@ -104,8 +108,9 @@ public class GlossaryWidget extends Composite implements
 
 	public GlossaryWidget(IWorkbenchPartSite site, Composite parent, int style,
 	        GlossaryManager manager, String refLang, List<String> dls) {
-		super(parent, style);
+		super(parent, style & ~SWT.VIRTUAL);
 		this.site = site;
+		this.virtual = (style & SWT.VIRTUAL) != 0;
 
 		if (manager != null) {
 			this.manager = manager;
@@ -193,13 +198,19 @@ public class GlossaryWidget extends Composite implements
 
 		matcher.setPattern(patternBefore);
 
-		if (this.selectiveViewEnabled)
-			new SelectiveMatcher(treeViewer, site.getPage());
+		if (this.selectiveViewEnabled) {
+			if (crossRefIndex == null)
+				crossRefIndex = new CrossReferenceIndex(glossary);
+			new SelectiveMatcher(treeViewer, site.getPage(), crossRefIndex);
+		}
 	}
 
 	protected void initTreeViewer() {
 		// init content provider
-		contentProvider = new GlossaryContentProvider(this.glossary);
+		if (virtual)
+			contentProvider = new GlossaryLazyContentProvider(this.glossary);
+		else
+			contentProvider = new GlossaryContentProvider(this.glossary);
 		treeViewer.setContentProvider(contentProvider);
 		
 		// init label provider
@@ -222,7 +233,7 @@ public class GlossaryWidget extends Composite implements
 		((GlossaryContentProvider) treeViewer.getContentProvider())
 		        .setGrouped(this.grouped);
 		if (treeViewer.getInput() == null)
-			treeViewer.setUseHashlookup(false);
+			treeViewer.setUseHashlookup(virtual);
 		treeViewer.setInput(this.glossary);
 		treeViewer.refresh();
 	}
@@ -231,8 +242,9 @@ public class GlossaryWidget extends Composite implements
 		basicLayout = new TreeColumnLayout();
 		this.setLayout(basicLayout);
 
+		// only visible rows are materialized in virtual mode
 		treeViewer = new TreeViewer(this, SWT.FULL_SELECTION | SWT.SINGLE
-		        | SWT.BORDER);
+		        | SWT.BORDER | (virtual ? SWT.VIRTUAL : SWT.NONE));
 		Tree tree = treeViewer.getTree();
 
 		if (glossary != null) {
@@ -301,6 +313,8 @@ public class GlossaryWidget extends Composite implements
 
 					if (translation != null) {
 						translation.value = (String) value;
+						sorter.invalidate(term);
+						invalidateCrossReferences();
 						Glossary gl = ((GlossaryContentProvider) treeViewer
 						        .getContentProvider()).getGlossary();
 						manager.setGlossary(gl);
@@ -382,6 +396,8 @@ public class GlossaryWidget extends Composite implements
 
 						if (translation != null) {
 							translation.value = (String) value;
+							sorter.invalidate(term);
+							invalidateCrossReferences();
 							Glossary gl = ((GlossaryContentProvider) treeViewer
 							        .getContentProvider()).getGlossary();
 							manager.setGlossary(gl);
@@ -497,6 +513,11 @@ public class GlossaryWidget extends Composite implements
 		treeViewer.refresh();
 	}
 
+	private void invalidateCrossReferences() {
+		if (crossRefIndex != null)
+			crossRefIndex.invalidate();
+	}
+
 	public StructuredViewer getViewer() {
 		return this.treeViewer;
 	}
@@ -532,6 +553,10 @@ public class GlossaryWidget extends Composite implements
 		return matcher.getPattern();
 	}
 
+	public boolean isVirtual() {
+		return virtual;
+	}
+
 	public boolean isEditable() {
 		return editable;
 	}
@@ -561,6 +586,7 @@ public class GlossaryWidget extends Composite implements
 				}
 			}
 		}
+		invalidateCrossReferences();
 		this.refreshViewer();
 	}
 
@@ -604,6 +630,7 @@ public class GlossaryWidget extends Composite implements
 				} catch (Exception e) {
 					e.printStackTrace();
 				}
+				invalidateCrossReferences();
 			}
 		}
 		this.refreshViewer();
@@ -658,6 +685,7 @@ public class GlossaryWidget extends Composite implements
 
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
+		invalidateCrossReferences();
 		initMatchers();
 		this.refreshViewer();
 	}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.views.widgets.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.babel.core.message.IMessage;
+import org.eclipse.babel.core.message.tree.IKeyTreeNode;
+import org.eclipselabs.tapiji.translator.model.Glossary;
+import org.eclipselabs.tapiji.translator.model.Term;
+import org.eclipselabs.tapiji.translator.model.Translation;
+import org.eclipselabs.tapiji.translator.utils.Tokenizer;
+
+/**
+ * Maps the case-folded translations of a glossary to their terms, so that the
+ * terms referenced by the messages of a resource bundle key can be looked up
+ * token by token.
+ *
+ * The index is built lazily and has to be invalidated whenever a term of the
+ * glossary is added, removed or edited.
+ */
+public class CrossReferenceIndex {
+
+    private final Glossary glossary;
+
+    /** Case-folded translation value -> terms */
+    private Map<String, List<Term>> termIndex;
+
+    /** Result of the last lookup */
+    private Set<String> lastTokens;
+    private Set<Term> lastTerms;
+
+    public CrossReferenceIndex(Glossary glossary) {
+	this.glossary = glossary;
+    }
+
+    /**
+     * Returns the case-folded tokens of all messages of the given key.
+     *
+     * @param node
+     *            the selected key, may be <code>null</code>
+     * @return the set of tokens, empty if there is no key
+     */
+    public static Set<String> getTokens(IKeyTreeNode node) {
+	if (node == null || node.getMessagesBundleGroup() == null)
+	    return Collections.emptySet();
+
+	Set<String> tokens = new HashSet<String>();
+	Tokenizer tokenizer = new Tokenizer(Tokenizer.WORDS);
+	for (IMessage entry : node.getMessagesBundleGroup().getMessages(
+		node.getMessageKey())) {
+	    String value = entry.getValue();
+	    if (value == null)
+		continue;
+
+	    tokenizer.reset(value);
+	    while (tokenizer.next())
+		tokens.add(fold(tokenizer.token()));
+	}
+	return tokens;
+    }
+
+    /**
+     * Case-folds a string the same way {@link String#equalsIgnoreCase(String)}
+     * compares characters, i.e. <code>fold(a).equals(fold(b))</code> whenever
+     * <code>a.equalsIgnoreCase(b)</code>.
+     */
+    public static String fold(String s) {
+	int length = s.length();
+	int i = 0;
+	while (i < length && foldChar(s.charAt(i)) == s.charAt(i))
+	    i++;
+	if (i == length)
+	    return s;
+
+	char[] chars = s.toCharArray();
+	for (; i < length; i++)
+	    chars[i] = foldChar(chars[i]);
+	return new String(chars);
+    }
+
+    private static char foldChar(char c) {
+	return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Checks whether the text, trimmed, equals one of the tokens.
+     */
+    public static boolean isToken(Set<String> tokens, String text) {
+	if (text == null || tokens.isEmpty())
+	    return false;
+	String trimmed = text.trim();
+	return trimmed.length() > 0 && tokens.contains(fold(trimmed));
+    }
+
+    /**
+     * Returns all terms having a translation that equals one of the tokens.
+     * The result of the last call is reused as long as the same token set is
+     * passed and the index hasn't been invalidated.
+     *
+     * @param tokens
+     *            case-folded tokens, see {@link #getTokens(IKeyTreeNode)}
+     * @return the referenced terms
+     */
+    public synchronized Set<Term> getReferencedTerms(Set<String> tokens) {
+	if (tokens == lastTokens && lastTerms != null)
+	    return lastTerms;
+
+	Map<String, List<Term>> index = getTermIndex();
+	Set<Term> terms = new HashSet<Term>();
+	for (String token : tokens) {
+	    List<Term> matching = index.get(token);
+	    if (matching != null)
+		terms.addAll(matching);
+	}
+
+	lastTokens = tokens;
+	lastTerms = terms;
+	return terms;
+    }
+
+    /**
+     * Drops the index, it will be rebuilt on the next lookup.
+     */
+    public synchronized void invalidate() {
+	termIndex = null;
+	lastTokens = null;
+	lastTerms = null;
+    }
+
+    private Map<String, List<Term>> getTermIndex() {
+	if (termIndex == null) {
+	    termIndex = new HashMap<String, List<Term>>();
+	    if (glossary != null) {
+		for (Term term : glossary.terms)
+		    addTerm(term);
+	    }
+	}
+	return termIndex;
+    }
+
+    private void addTerm(Term term) {
+	for (Translation translation : term.translations) {
+	    if (translation.value == null)
+		continue;
+
+	    String value = translation.value.trim();
+	    if (value.length() == 0)
+		continue;
+
+	    String key = fold(value);
+	    List<Term> terms = termIndex.get(key);
+	    if (terms == null) {
+		terms = new ArrayList<Term>(1);
+		termIndex.put(key, terms);
+	    }
+	    if (!terms.contains(term))
+		terms.add(term);
+	}
+
+	for (Term subTerm : term.subTerms)
+	    addTerm(subTerm);
+    }
+}
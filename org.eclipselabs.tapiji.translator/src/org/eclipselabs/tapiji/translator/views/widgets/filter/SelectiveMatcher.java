@@ -10,7 +10,8 @@
  ******************************************************************************/
 package org.eclipselabs.tapiji.translator.views.widgets.filter;
 
-import org.eclipse.babel.core.message.IMessage;
+import java.util.Set;
+
 import org.eclipse.babel.core.message.tree.IKeyTreeNode;
 import org.eclipse.babel.editor.api.EditorUtil;
 import org.eclipse.jface.viewers.ISelection;
@@ -23,8 +24,7 @@ import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.ui.ISelectionListener;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchPart;
-import org.eclipselabs.tapiji.translator.model.Term;
-import org.eclipselabs.tapiji.translator.model.Translation;
+import org.eclipselabs.tapiji.translator.model.Glossary;
 
 public class SelectiveMatcher extends ViewerFilter implements
 	ISelectionListener, ISelectionChangedListener {
@@ -34,12 +34,23 @@ public class SelectiveMatcher extends ViewerFilter implements
     protected StringMatcher matcher;
     protected IKeyTreeNode selectedItem;
     protected IWorkbenchPage page;
+    protected CrossReferenceIndex index;
+    protected Set<String> selectedTokens;
 
     public SelectiveMatcher(StructuredViewer viewer, IWorkbenchPage page) {
+	this(viewer, page, new CrossReferenceIndex(
+		viewer.getInput() instanceof Glossary ? (Glossary) viewer
+			.getInput() : null));
+    }
+
+    public SelectiveMatcher(StructuredViewer viewer, IWorkbenchPage page,
+	    CrossReferenceIndex index) {
 	this.viewer = viewer;
+	this.index = index;
 	if (page.getActiveEditor() != null) {
 	    this.selectedItem = EditorUtil.getSelectedKeyTreeNode(page);
 	}
+	this.selectedTokens = CrossReferenceIndex.getTokens(selectedItem);
 
 	this.page = page;
 	page.getWorkbenchWindow().getSelectionService()
@@ -54,31 +65,7 @@ public class SelectiveMatcher extends ViewerFilter implements
 	if (selectedItem == null)
 	    return false;
 
-	Term term = (Term) element;
-	FilterInfo filterInfo = new FilterInfo();
-	boolean selected = false;
-
-	// Iterate translations
-	for (Translation translation : term.getAllTranslations()) {
-	    String value = translation.value;
-
-	    if (value.trim().length() == 0)
-		continue;
-
-	    String locale = translation.id;
-
-	    for (IMessage entry : selectedItem.getMessagesBundleGroup()
-		    .getMessages(selectedItem.getMessageKey())) {
-		String ev = entry.getValue();
-		String[] subValues = ev.split("[\\s\\p{Punct}]+");
-		for (String v : subValues) {
-		    if (v.trim().equalsIgnoreCase(value.trim()))
-			return true;
-		}
-	    }
-	}
-
-	return false;
+	return index.getReferencedTerms(selectedTokens).contains(element);
     }
 
     @Override
@@ -92,6 +79,7 @@ public class SelectiveMatcher extends ViewerFilter implements
 
 	    IStructuredSelection sel = (IStructuredSelection) selection;
 	    selectedItem = (IKeyTreeNode) sel.iterator().next();
+	    selectedTokens = CrossReferenceIndex.getTokens(selectedItem);
 	    viewer.refresh();
 	} catch (Exception e) {
 	}
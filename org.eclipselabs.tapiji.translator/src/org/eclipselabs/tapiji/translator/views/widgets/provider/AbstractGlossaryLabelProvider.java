@@ -11,8 +11,8 @@
 package org.eclipselabs.tapiji.translator.views.widgets.provider;
 
 import java.util.List;
+import java.util.Set;
 
-import org.eclipse.babel.core.message.IMessage;
 import org.eclipse.babel.core.message.tree.IKeyTreeNode;
 import org.eclipse.babel.editor.api.EditorUtil;
 import org.eclipse.jface.viewers.ISelection;
@@ -29,6 +29,7 @@ import org.eclipse.ui.IWorkbenchPart;
 import org.eclipselabs.tapiji.translator.model.Term;
 import org.eclipselabs.tapiji.translator.model.Translation;
 import org.eclipselabs.tapiji.translator.utils.FontUtils;
+import org.eclipselabs.tapiji.translator.views.widgets.filter.CrossReferenceIndex;
 import org.eclipselabs.tapiji.translator.views.widgets.filter.FilterInfo;
 
 public abstract class AbstractGlossaryLabelProvider extends StyledCellLabelProvider implements
@@ -41,6 +42,8 @@ public abstract class AbstractGlossaryLabelProvider extends StyledCellLabelProvi
 	protected int referenceColumn = 0;
 	protected List<String> translations;
 	protected IKeyTreeNode selectedItem;
+	/** Case-folded tokens of the selected key's messages */
+	protected Set<String> selectedTokens;
 
 	/*** COLORS ***/
 	protected Color gray = FontUtils.getSystemColor(SWT.COLOR_GRAY);
@@ -67,6 +70,7 @@ public abstract class AbstractGlossaryLabelProvider extends StyledCellLabelProvi
 		if (page.getActiveEditor() != null) {
 			selectedItem = EditorUtil.getSelectedKeyTreeNode(page);
 		}
+		selectedTokens = CrossReferenceIndex.getTokens(selectedItem);
 	}
 
 	public String getColumnText(Object element, int columnIndex) {
@@ -106,19 +110,7 @@ public abstract class AbstractGlossaryLabelProvider extends StyledCellLabelProvi
 	}
 
 	protected boolean isCrossRefRegion(String cellText) {
-		if (selectedItem != null) {
-			for (IMessage entry : selectedItem.getMessagesBundleGroup()
-			        .getMessages(selectedItem.getMessageKey())) {
-				String value = entry.getValue();
-				String[] subValues = value.split("[\\s\\p{Punct}]+");
-				for (String v : subValues) {
-					if (v.trim().equalsIgnoreCase(cellText.trim()))
-						return true;
-				}
-			}
-		}
-
-		return false;
+		return CrossReferenceIndex.isToken(selectedTokens, cellText);
 	}
 
 	protected Font getColumnFont(Object element, int columnIndex) {
@@ -139,6 +131,7 @@ public abstract class AbstractGlossaryLabelProvider extends StyledCellLabelProvi
 
 			IStructuredSelection sel = (IStructuredSelection) selection;
 			selectedItem = (IKeyTreeNode) sel.iterator().next();
+			selectedTokens = CrossReferenceIndex.getTokens(selectedItem);
 			this.getViewer().refresh();
 		} catch (Exception e) {
 			// silent catch
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.views.widgets.provider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipselabs.tapiji.translator.model.Glossary;
+import org.eclipselabs.tapiji.translator.model.Term;
+
+/**
+ * Content provider for a glossary tree created with <code>SWT.VIRTUAL</code>.
+ * Tree items are only materialized (and labeled) when they become visible.
+ *
+ * A lazy tree viewer doesn't apply its filters and its comparator itself, so
+ * this provider applies them whenever the children of an element are requested
+ * for the first time after a refresh.
+ */
+public class GlossaryLazyContentProvider extends GlossaryContentProvider
+	implements ILazyTreeContentProvider {
+
+    private TreeViewer viewer;
+    private Object input;
+
+    /** Filtered and sorted children per parent element */
+    private Map<Object, Object[]> childrenCache = new HashMap<Object, Object[]>();
+
+    public GlossaryLazyContentProvider(Glossary glossary) {
+	super(glossary);
+    }
+
+    @Override
+    public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+	super.inputChanged(viewer, oldInput, newInput);
+	this.viewer = (TreeViewer) viewer;
+	this.input = newInput;
+	childrenCache.clear();
+    }
+
+    @Override
+    public void setGrouped(boolean grouped) {
+	super.setGrouped(grouped);
+	childrenCache.clear();
+    }
+
+    @Override
+    public void dispose() {
+	childrenCache.clear();
+	viewer = null;
+	input = null;
+	super.dispose();
+    }
+
+    @Override
+    public void updateElement(Object parent, int index) {
+	Object[] children = getVisibleChildren(parent);
+	if (index >= children.length)
+	    return;
+
+	Object element = children[index];
+	viewer.replace(parent, index, element);
+	viewer.setHasChildren(element, hasChildren(element));
+    }
+
+    @Override
+    public void updateChildCount(Object element, int currentChildCount) {
+	// the viewer requests the child count of its input on every refresh
+	if (element == input)
+	    childrenCache.clear();
+
+	int count = getVisibleChildren(element).length;
+	if (count != currentChildCount)
+	    viewer.setChildCount(element, count);
+    }
+
+    @Override
+    public Object getParent(Object element) {
+	Object parent = super.getParent(element);
+	return parent != null ? parent : input;
+    }
+
+    /**
+     * Drops the cached children, so that the filters and the comparator of the
+     * viewer get applied again on the next request.
+     */
+    public void invalidate() {
+	childrenCache.clear();
+    }
+
+    protected Object[] getVisibleChildren(Object parent) {
+	Object[] children = childrenCache.get(parent);
+	if (children != null)
+	    return children;
+
+	Object[] raw = parent == input ? getElements(parent)
+		: getChildren(parent);
+	if (raw == null)
+	    raw = new Object[0];
+
+	children = filter(parent, raw);
+	ViewerComparator comparator = viewer.getComparator();
+	if (comparator != null)
+	    comparator.sort(viewer, children);
+
+	childrenCache.put(parent, children);
+	return children;
+    }
+
+    private Object[] filter(Object parent, Object[] elements) {
+	ViewerFilter[] filters = viewer.getFilters();
+	if (filters.length == 0)
+	    return elements.clone();
+
+	List<Object> filtered = new ArrayList<Object>(elements.length);
+	for (Object element : elements) {
+	    boolean selected = true;
+	    for (ViewerFilter filter : filters) {
+		if (!filter.select(viewer, parent, element)) {
+		    selected = false;
+		    break;
+		}
+	    }
+	    if (selected)
+		filtered.add(element);
+	}
+	return filtered.toArray();
+    }
+
+    @Override
+    public boolean hasChildren(Object element) {
+	// prefer the filtered children if they are known already
+	if (element instanceof Term && childrenCache.containsKey(element))
+	    return childrenCache.get(element).length > 0;
+	return super.hasChildren(element);
+    }
+}
@@ -16,7 +16,6 @@ import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerSorter;
 import org.eclipselabs.tapiji.translator.model.Term;
-import org.eclipselabs.tapiji.translator.model.Translation;
 
 public class GlossaryEntrySorter extends ViewerSorter {
 
@@ -24,6 +23,7 @@ public class GlossaryEntrySorter extends ViewerSorter {
     private SortInfo sortInfo;
     private int referenceCol;
     private List<String> translations;
+    private GlossarySortEngine engine = new GlossarySortEngine();
 
     public GlossaryEntrySorter(StructuredViewer viewer, SortInfo sortInfo,
 	    int referenceCol, List<String> translations) {
@@ -53,45 +53,46 @@ public class GlossaryEntrySorter extends ViewerSorter {
 	this.sortInfo = sortInfo;
     }
 
+    public GlossarySortEngine getSortEngine() {
+	return engine;
+    }
+
+    /**
+     * Invalidates the cached sort keys of a term whose translations have been
+     * modified.
+     */
+    public void invalidate(Term term) {
+	engine.invalidate(term);
+    }
+
+    @Override
+    public void sort(Viewer viewer, Object[] elements) {
+	if (sortInfo == null)
+	    return;
+	engine.sort(elements, getSortLocale(), sortInfo.isDESC());
+    }
+
     @Override
     public int compare(Viewer viewer, Object e1, Object e2) {
-	try {
-	    if (!(e1 instanceof Term && e2 instanceof Term))
-		return super.compare(viewer, e1, e2);
-	    Term comp1 = (Term) e1;
-	    Term comp2 = (Term) e2;
-
-	    int result = 0;
-
-	    if (sortInfo == null)
-		return 0;
-
-	    if (sortInfo.getColIdx() == 0) {
-		Translation transComp1 = comp1.getTranslation(translations
-			.get(referenceCol));
-		Translation transComp2 = comp2.getTranslation(translations
-			.get(referenceCol));
-		if (transComp1 != null && transComp2 != null)
-		    result = transComp1.value.compareTo(transComp2.value);
-	    } else {
-		int col = sortInfo.getColIdx() < referenceCol ? sortInfo
-			.getColIdx() + 1 : sortInfo.getColIdx();
-		Translation transComp1 = comp1.getTranslation(translations
-			.get(col));
-		Translation transComp2 = comp2.getTranslation(translations
-			.get(col));
-
-		if (transComp1 == null)
-		    transComp1 = new Translation();
-		if (transComp2 == null)
-		    transComp2 = new Translation();
-		result = transComp1.value.compareTo(transComp2.value);
-	    }
-
-	    return result * (sortInfo.isDESC() ? -1 : 1);
-	} catch (Exception e) {
+	if (!(e1 instanceof Term && e2 instanceof Term))
+	    return super.compare(viewer, e1, e2);
+
+	if (sortInfo == null)
 	    return 0;
-	}
+
+	int result = engine.compare((Term) e1, (Term) e2, getSortLocale());
+	return result * (sortInfo.isDESC() ? -1 : 1);
+    }
+
+    private String getSortLocale() {
+	if (sortInfo.getColIdx() == 0)
+	    return translations.get(referenceCol);
+
+	int col = sortInfo.getColIdx() < referenceCol ? sortInfo.getColIdx() + 1
+		: sortInfo.getColIdx();
+	if (col >= translations.size())
+	    return translations.get(referenceCol);
+	return translations.get(col);
     }
 
 }
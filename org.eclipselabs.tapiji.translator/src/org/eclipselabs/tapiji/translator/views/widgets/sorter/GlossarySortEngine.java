@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Martin Reiterer.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Martin Reiterer - initial API and implementation
+ ******************************************************************************/
+package org.eclipselabs.tapiji.translator.views.widgets.sorter;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipselabs.tapiji.translator.model.Term;
+import org.eclipselabs.tapiji.translator.model.Translation;
+
+/**
+ * Sorts glossary terms by the translation of a single locale (column).
+ *
+ * The locale-aware {@link CollationKey} of a term is computed once per column
+ * and reused for every following sort until the term gets invalidated. The
+ * elements are ordered through an index array, which is split across several
+ * threads for large glossaries.
+ */
+public class GlossarySortEngine {
+
+    /** Number of elements from which on the index array is sorted in parallel */
+    public static final int PARALLEL_THRESHOLD = 10000;
+
+    /** Ranges up to this size are sorted by insertion sort */
+    private static final int INSERTION_SORT_THRESHOLD = 7;
+
+    private static ExecutorService executor;
+
+    private final Map<String, Collator> collators = new HashMap<String, Collator>();
+
+    /** Collation keys per locale; terms are weakly referenced */
+    private final Map<String, Map<Term, CollationKey>> keys = new HashMap<String, Map<Term, CollationKey>>();
+
+    /**
+     * Returns the (cached) collation key of the term's translation.
+     *
+     * @param term
+     *            the glossary term
+     * @param locale
+     *            the locale id of the translation, e.g. "Default" or "de_AT"
+     * @return the collation key, a missing translation counts as empty string
+     */
+    public CollationKey getKey(Term term, String locale) {
+	Map<Term, CollationKey> column = keys.get(locale);
+	if (column == null) {
+	    column = new WeakHashMap<Term, CollationKey>();
+	    keys.put(locale, column);
+	}
+
+	CollationKey key = column.get(term);
+	if (key == null) {
+	    Translation translation = term.findTranslation(locale);
+	    String value = translation != null && translation.value != null ? translation.value
+		    : "";
+	    key = getCollator(locale).getCollationKey(value);
+	    column.put(term, key);
+	}
+	return key;
+    }
+
+    /**
+     * Drops the cached keys of a term, e.g. after one of its translations has
+     * been edited.
+     */
+    public void invalidate(Term term) {
+	for (Map<Term, CollationKey> column : keys.values())
+	    column.remove(term);
+    }
+
+    /**
+     * Drops all cached keys.
+     */
+    public void invalidateAll() {
+	keys.clear();
+    }
+
+    public int compare(Term t1, Term t2, String locale) {
+	return getKey(t1, locale).compareTo(getKey(t2, locale));
+    }
+
+    /**
+     * Sorts the given elements in place by the translation of the locale.
+     * Elements which are no {@link Term}s are moved to the end. The sort is
+     * stable.
+     *
+     * @param elements
+     *            the elements to sort
+     * @param locale
+     *            the locale id of the sort column
+     * @param descending
+     *            <code>true</code> to reverse the order of the terms
+     */
+    public void sort(Object[] elements, String locale, boolean descending) {
+	int n = elements.length;
+	if (n < 2)
+	    return;
+
+	// collation keys are computed on the calling thread, the collators
+	// aren't thread safe
+	CollationKey[] sortKeys = new CollationKey[n];
+	int[] index = new int[n];
+	for (int i = 0; i < n; i++) {
+	    if (elements[i] instanceof Term)
+		sortKeys[i] = getKey((Term) elements[i], locale);
+	    index[i] = i;
+	}
+
+	if (n < PARALLEL_THRESHOLD
+		|| !parallelSort(index, sortKeys, descending))
+	    mergeSort(index, new int[n], 0, n, sortKeys, descending);
+
+	Object[] sorted = new Object[n];
+	for (int i = 0; i < n; i++)
+	    sorted[i] = elements[index[i]];
+	System.arraycopy(sorted, 0, elements, 0, n);
+    }
+
+    private boolean parallelSort(final int[] index, final CollationKey[] sortKeys,
+	    final boolean descending) {
+	int parts = Runtime.getRuntime().availableProcessors();
+	if (parts < 2)
+	    return false;
+
+	final int n = index.length;
+	final int[] tmp = new int[n];
+	int[] bounds = new int[parts + 1];
+	for (int i = 0; i <= parts; i++)
+	    bounds[i] = (int) ((long) n * i / parts);
+
+	List<Future<?>> futures = new ArrayList<Future<?>>(parts);
+	for (int i = 0; i < parts; i++) {
+	    final int from = bounds[i];
+	    final int to = bounds[i + 1];
+	    futures.add(getExecutor().submit(new Callable<Object>() {
+		@Override
+		public Object call() throws Exception {
+		    mergeSort(index, tmp, from, to, sortKeys, descending);
+		    return null;
+		}
+	    }));
+	}
+
+	try {
+	    for (Future<?> future : futures)
+		future.get();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return false;
+	} catch (ExecutionException e) {
+	    e.printStackTrace();
+	    return false;
+	}
+
+	// merge the sorted runs pairwise
+	for (int width = 1; width < parts; width *= 2) {
+	    for (int i = 0; i + width < parts; i += 2 * width) {
+		int from = bounds[i];
+		int mid = bounds[i + width];
+		int to = bounds[Math.min(i + 2 * width, parts)];
+		merge(index, tmp, from, mid, to, sortKeys, descending);
+	    }
+	}
+	return true;
+    }
+
+    private static void mergeSort(int[] index, int[] tmp, int from, int to,
+	    CollationKey[] sortKeys, boolean descending) {
+	if (to - from <= INSERTION_SORT_THRESHOLD) {
+	    for (int i = from + 1; i < to; i++) {
+		int current = index[i];
+		int j = i - 1;
+		while (j >= from
+			&& compare(sortKeys[index[j]], sortKeys[current],
+				descending) > 0) {
+		    index[j + 1] = index[j];
+		    j--;
+		}
+		index[j + 1] = current;
+	    }
+	    return;
+	}
+
+	int mid = (from + to) >>> 1;
+	mergeSort(index, tmp, from, mid, sortKeys, descending);
+	mergeSort(index, tmp, mid, to, sortKeys, descending);
+	merge(index, tmp, from, mid, to, sortKeys, descending);
+    }
+
+    private static void merge(int[] index, int[] tmp, int from, int mid,
+	    int to, CollationKey[] sortKeys, boolean descending) {
+	// already in order
+	if (compare(sortKeys[index[mid - 1]], sortKeys[index[mid]], descending) <= 0)
+	    return;
+
+	System.arraycopy(index, from, tmp, from, to - from);
+	int left = from;
+	int right = mid;
+	for (int i = from; i < to; i++) {
+	    if (right >= to
+		    || (left < mid && compare(sortKeys[tmp[left]],
+			    sortKeys[tmp[right]], descending) <= 0))
+		index[i] = tmp[left++];
+	    else
+		index[i] = tmp[right++];
+	}
+    }
+
+    private static int compare(CollationKey k1, CollationKey k2,
+	    boolean descending) {
+	if (k1 == null)
+	    return k2 == null ? 0 : 1;
+	if (k2 == null)
+	    return -1;
+	int result = k1.compareTo(k2);
+	return descending ? -result : result;
+    }
+
+    private Collator getCollator(String locale) {
+	Collator collator = collators.get(locale);
+	if (collator == null) {
+	    collator = Collator.getInstance(toLocale(locale));
+	    collators.put(locale, collator);
+	}
+	return collator;
+    }
+
+    private static Locale toLocale(String locale) {
+	if (locale == null || locale.equalsIgnoreCase("Default"))
+	    return Locale.getDefault();
+
+	String[] locDef = locale.split("_");
+	return locDef.length < 3 ? (locDef.length < 2 ? new Locale(locDef[0])
+		: new Locale(locDef[0], locDef[1])) : new Locale(locDef[0],
+		locDef[1], locDef[2]);
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+	if (executor == null) {
+	    executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+		    .availableProcessors(), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+		    Thread thread = new Thread(r, "Glossary Sorter");
+		    thread.setDaemon(true);
+		    return thread;
+		}
+	    });
+	}
+	return executor;
+    }
+}